@@ -0,0 +1,77 @@
+package com.ecommerce.backend.analytics;
+
+import com.ecommerce.backend.dto.DailySalesDto;
+import com.ecommerce.backend.dto.ProductSalesDto;
+import com.ecommerce.backend.entity.OrderStatus;
+import com.ecommerce.backend.repository.ProductSalesDailyRollupRepository;
+import com.ecommerce.backend.repository.SalesDailyRollupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sales figures for the admin dashboard, read from the rollups that {@link SalesRollupService}
+ * maintains. Each query reads a fixed number of rows per day in its range, however many orders
+ * those days hold. Ranges are whole days.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class SalesAnalyticsService {
+
+    private final SalesDailyRollupRepository salesDailyRollupRepository;
+    private final ProductSalesDailyRollupRepository productSalesDailyRollupRepository;
+
+    /**
+     * Order count and revenue for each day from {@code since} on; days without orders are left out.
+     */
+    public List<DailySalesDto> getDailySales(LocalDate since) {
+        return salesDailyRollupRepository.getDailyTotals(since).stream()
+                .map(row -> DailySalesDto.builder()
+                        .date((LocalDate) row[0])
+                        .orderCount(((Number) row[1]).longValue())
+                        .revenue((BigDecimal) row[2])
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Revenue of orders placed from {@code startDate} through {@code endDate}, both inclusive.
+     */
+    public BigDecimal getRevenue(LocalDate startDate, LocalDate endDate) {
+        return salesDailyRollupRepository.sumRevenueByDateRange(startDate, endDate);
+    }
+
+    public Map<OrderStatus, Long> getOrderCountByStatus() {
+        Map<OrderStatus, Long> counts = new LinkedHashMap<>();
+        salesDailyRollupRepository.getOrderCountByStatus()
+                .forEach(row -> counts.put((OrderStatus) row[0], ((Number) row[1]).longValue()));
+        return counts;
+    }
+
+    public List<ProductSalesDto> getTopSellingProducts(LocalDate since, int limit) {
+        return toProductSales(productSalesDailyRollupRepository.getTopSellingProducts(since, PageRequest.of(0, limit)));
+    }
+
+    public List<ProductSalesDto> getTopRevenueProducts(LocalDate since, int limit) {
+        return toProductSales(productSalesDailyRollupRepository.getTopRevenueProducts(since, PageRequest.of(0, limit)));
+    }
+
+    private static List<ProductSalesDto> toProductSales(List<Object[]> rows) {
+        return rows.stream()
+                .map(row -> ProductSalesDto.builder()
+                        .productId((Long) row[0])
+                        .productName((String) row[1])
+                        .quantity(((Number) row[2]).longValue())
+                        .revenue((BigDecimal) row[3])
+                        .build())
+                .toList();
+    }
+}
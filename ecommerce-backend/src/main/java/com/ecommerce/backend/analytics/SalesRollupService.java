@@ -0,0 +1,190 @@
+package com.ecommerce.backend.analytics;
+
+import com.ecommerce.backend.entity.Order;
+import com.ecommerce.backend.entity.OrderStatus;
+import com.ecommerce.backend.repository.OrderRepository;
+import com.ecommerce.backend.repository.SalesDailyRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Keeps the sales rollup tables in step with the orders written.
+ * <p>
+ * Checkout and status changes add their deltas to per-day buckets in the caller's transaction,
+ * so a rollup never counts an order that rolled back. Each bucket is split into
+ * {@code analytics.rollup.slots} rows, and an order always lands in slot {@code id % slots}, so
+ * concurrent checkouts on the same day mostly lock different rows. Deltas are upserts: the first
+ * one of the day creates the bucket row, on the caller's connection, and all the product lines of
+ * an order go in one batch.
+ * <p>
+ * {@link #rebuild()} recomputes every bucket from {@code orders} and {@code order_items}. It runs
+ * at startup, before the web server accepts requests, when the rollups are empty but orders exist,
+ * which backfills history on first deploy.
+ */
+@Service
+@Slf4j
+public class SalesRollupService implements SmartInitializingSingleton {
+
+    // PostgreSQL has no MERGE before 15, and H2 (the dev profile) has no ON CONFLICT ... DO UPDATE
+    private static final String ADD_DAILY_POSTGRES_SQL =
+            "INSERT INTO sales_daily_rollups AS r (sales_date, status, slot, order_count, revenue) " +
+            "VALUES (?, ?, ?, ?, ?) ON CONFLICT (sales_date, status, slot) DO UPDATE " +
+            "SET order_count = r.order_count + EXCLUDED.order_count, revenue = r.revenue + EXCLUDED.revenue";
+
+    private static final String ADD_DAILY_MERGE_SQL =
+            "MERGE INTO sales_daily_rollups r USING (SELECT CAST(? AS DATE) AS sales_date, " +
+            "CAST(? AS VARCHAR(20)) AS status, CAST(? AS INTEGER) AS slot, CAST(? AS BIGINT) AS order_count, " +
+            "CAST(? AS DECIMAL(19, 2)) AS revenue) d " +
+            "ON r.sales_date = d.sales_date AND r.status = d.status AND r.slot = d.slot " +
+            "WHEN MATCHED THEN UPDATE SET order_count = r.order_count + d.order_count, revenue = r.revenue + d.revenue " +
+            "WHEN NOT MATCHED THEN INSERT (sales_date, status, slot, order_count, revenue) " +
+            "VALUES (d.sales_date, d.status, d.slot, d.order_count, d.revenue)";
+
+    private static final String ADD_PRODUCT_POSTGRES_SQL =
+            "INSERT INTO product_sales_daily_rollups AS r (sales_date, product_id, slot, product_name, quantity, revenue) " +
+            "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (sales_date, product_id, slot) DO UPDATE " +
+            "SET quantity = r.quantity + EXCLUDED.quantity, revenue = r.revenue + EXCLUDED.revenue";
+
+    private static final String ADD_PRODUCT_MERGE_SQL =
+            "MERGE INTO product_sales_daily_rollups r USING (SELECT CAST(? AS DATE) AS sales_date, " +
+            "CAST(? AS BIGINT) AS product_id, CAST(? AS INTEGER) AS slot, CAST(? AS VARCHAR(200)) AS product_name, " +
+            "CAST(? AS BIGINT) AS quantity, CAST(? AS DECIMAL(19, 2)) AS revenue) d " +
+            "ON r.sales_date = d.sales_date AND r.product_id = d.product_id AND r.slot = d.slot " +
+            "WHEN MATCHED THEN UPDATE SET quantity = r.quantity + d.quantity, revenue = r.revenue + d.revenue " +
+            "WHEN NOT MATCHED THEN INSERT (sales_date, product_id, slot, product_name, quantity, revenue) " +
+            "VALUES (d.sales_date, d.product_id, d.slot, d.product_name, d.quantity, d.revenue)";
+
+    // Holds off checkouts from other nodes until the rebuilt rows are committed
+    private static final String LOCK_ROLLUPS_POSTGRES_SQL =
+            "LOCK TABLE sales_daily_rollups, product_sales_daily_rollups IN EXCLUSIVE MODE";
+
+    private static final String BACKFILL_DAILY_SQL =
+            "INSERT INTO sales_daily_rollups (sales_date, status, slot, order_count, revenue) " +
+            "SELECT CAST(o.order_date AS DATE), o.status, MOD(o.id, %1$d), COUNT(*), SUM(o.total_amount) " +
+            "FROM orders o GROUP BY CAST(o.order_date AS DATE), o.status, MOD(o.id, %1$d)";
+
+    private static final String BACKFILL_PRODUCT_SQL =
+            "INSERT INTO product_sales_daily_rollups (sales_date, product_id, slot, product_name, quantity, revenue) " +
+            "SELECT CAST(o.order_date AS DATE), oi.product_id, MOD(o.id, %1$d), MAX(oi.product_name), " +
+            "SUM(oi.quantity), SUM(oi.sub_total) " +
+            "FROM order_items oi JOIN orders o ON o.id = oi.order_id " +
+            "GROUP BY CAST(o.order_date AS DATE), oi.product_id, MOD(o.id, %1$d)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderRepository orderRepository;
+    private final SalesDailyRollupRepository salesDailyRollupRepository;
+    private final TransactionTemplate rebuildTransaction;
+    private final boolean postgres;
+
+    @Value("${analytics.rollup.slots:8}")
+    private int slots;
+
+    @Value("${analytics.rollup.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    public SalesRollupService(JdbcTemplate jdbcTemplate, OrderRepository orderRepository,
+                              SalesDailyRollupRepository salesDailyRollupRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.orderRepository = orderRepository;
+        this.salesDailyRollupRepository = salesDailyRollupRepository;
+        this.rebuildTransaction = new TransactionTemplate(transactionManager);
+        this.postgres = "PostgreSQL".equals(jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+    }
+
+    /**
+     * One product line of a placed order.
+     */
+    public record SoldLine(Long productId, String productName, String category, int quantity, BigDecimal revenue) {
+    }
+
+    /**
+     * Adds a newly inserted order. Lines must be sorted by product id, as checkout already does,
+     * so that concurrent checkouts lock product buckets in the same order.
+     */
+    public void onOrderPlaced(Order order, List<SoldLine> lines) {
+        LocalDate day = order.getOrderDate().toLocalDate();
+        int slot = slotFor(order);
+        addToDaily(day, order.getStatus(), slot, 1, order.getTotalAmount());
+
+        Date sqlDay = Date.valueOf(day);
+        jdbcTemplate.batchUpdate(postgres ? ADD_PRODUCT_POSTGRES_SQL : ADD_PRODUCT_MERGE_SQL, lines.stream()
+                .map(line -> new Object[]{sqlDay, line.productId(), slot, line.productName(), line.quantity(), line.revenue()})
+                .toList());
+    }
+
+    /**
+     * Moves an order from one status bucket to another after its status was changed.
+     */
+    public void onStatusChanged(Order order, OrderStatus from, OrderStatus to) {
+        if (from == to) {
+            return;
+        }
+        LocalDate day = order.getOrderDate().toLocalDate();
+        int slot = slotFor(order);
+        // Buckets are locked in status order, so two opposite changes on one day cannot deadlock
+        if (from.ordinal() < to.ordinal()) {
+            addToDaily(day, from, slot, -1, order.getTotalAmount().negate());
+            addToDaily(day, to, slot, 1, order.getTotalAmount());
+        } else {
+            addToDaily(day, to, slot, 1, order.getTotalAmount());
+            addToDaily(day, from, slot, -1, order.getTotalAmount().negate());
+        }
+    }
+
+    /**
+     * Recomputes all rollups from the order tables in one transaction.
+     * <p>
+     * On PostgreSQL the rollup tables are locked first, so a checkout on another node waits for
+     * the rebuild to commit. Its order is then either seen by the recomputation, or committed
+     * after it and added to the recomputed rows; it is never counted twice or lost, and its
+     * upsert cannot collide with a recomputed row.
+     */
+    public void rebuild() {
+        rebuildTransaction.executeWithoutResult(status -> {
+            if (postgres) {
+                jdbcTemplate.execute(LOCK_ROLLUPS_POSTGRES_SQL);
+            }
+            jdbcTemplate.update("DELETE FROM sales_daily_rollups");
+            jdbcTemplate.update("DELETE FROM product_sales_daily_rollups");
+            int dailyRows = jdbcTemplate.update(String.format(BACKFILL_DAILY_SQL, slots));
+            int productRows = jdbcTemplate.update(String.format(BACKFILL_PRODUCT_SQL, slots));
+            log.info("Rebuilt sales rollups: {} daily rows, {} product rows", dailyRows, productRows);
+        });
+    }
+
+    // Every bean exists by now, but the web server has not started: no checkout on this node can
+    // create a bucket first and hide the history that is missing
+    @Override
+    public void afterSingletonsInstantiated() {
+        backfillIfEmpty();
+    }
+
+    public void backfillIfEmpty() {
+        if (backfillOnStartup && salesDailyRollupRepository.count() == 0 && orderRepository.count() > 0) {
+            log.info("Sales rollups are empty, backfilling from order history");
+            rebuild();
+        }
+    }
+
+    private void addToDaily(LocalDate day, OrderStatus status, int slot, long orders, BigDecimal revenue) {
+        jdbcTemplate.update(postgres ? ADD_DAILY_POSTGRES_SQL : ADD_DAILY_MERGE_SQL,
+                Date.valueOf(day), status.name(), slot, orders, revenue);
+    }
+
+    private int slotFor(Order order) {
+        return (int) (order.getId() % slots);
+    }
+}
@@ -0,0 +1,205 @@
+package com.ecommerce.backend.analytics;
+
+import com.ecommerce.backend.analytics.SalesRollupService.SoldLine;
+import com.ecommerce.backend.cache.ProductCache;
+import com.ecommerce.backend.dto.TrendingProductDto;
+import com.ecommerce.backend.entity.Product;
+import com.ecommerce.backend.util.Money;
+import com.ecommerce.backend.util.SpaceSaving;
+import com.ecommerce.backend.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Best-selling products over the last few minutes, hour and day, kept in memory as orders are
+ * placed.
+ * <p>
+ * Each window is a ring of time buckets, and each bucket holds two {@link SpaceSaving} summaries,
+ * one weighted by units and one by revenue, of {@code analytics.trending.capacity} counters each.
+ * Memory is fixed whatever the size of the catalog. A window covers its current bucket plus the
+ * previous ones, so its span is accurate to one bucket. Buckets are merged when the window is read;
+ * every reported value is an upper bound, and {@code maxError} says by how much it may overstate.
+ * Merged rankings are reused for {@code analytics.trending.refresh-interval}, so widgets polling
+ * every few seconds do not each redo the merge.
+ * <p>
+ * Counts are per node and start empty on restart; the sales rollups hold the exact figures.
+ */
+@Component
+@RequiredArgsConstructor
+public class TrendingProductsTracker {
+
+    public enum Window {
+        FIVE_MINUTES(Duration.ofMinutes(5), 10),
+        HOUR(Duration.ofHours(1), 12),
+        DAY(Duration.ofDays(1), 24);
+
+        private final long bucketMs;
+        private final int buckets;
+
+        Window(Duration span, int buckets) {
+            this.bucketMs = span.toMillis() / buckets;
+            this.buckets = buckets;
+        }
+    }
+
+    public enum Metric {
+        UNITS,
+        REVENUE
+    }
+
+    private final ProductCache productCache;
+
+    @Value("${analytics.trending.capacity:500}")
+    private int capacity;
+
+    @Value("${analytics.trending.refresh-interval:1000}")
+    private long refreshIntervalMs;
+
+    // Filled once at startup, read-only afterwards
+    private final Map<Window, Ring> rings = new EnumMap<>(Window.class);
+    private final Map<Window, Map<Metric, Ranking>> rankings = new ConcurrentHashMap<>();
+
+    private record Estimate(long productId, long value, long error) {
+    }
+
+    private record Ranking(long computedAt, List<Estimate> estimates) {
+    }
+
+    @PostConstruct
+    void init() {
+        for (Window window : Window.values()) {
+            rings.put(window, new Ring(window, capacity));
+        }
+    }
+
+    /**
+     * Counts the lines of an order once its transaction commits.
+     */
+    public void recordAfterCommit(List<SoldLine> lines) {
+        TransactionUtils.afterCommit(() -> record(lines, System.currentTimeMillis()));
+    }
+
+    public List<TrendingProductDto> getTop(Window window, Metric metric, int limit) {
+        List<Estimate> estimates = ranking(window, metric).estimates();
+        List<Estimate> top = estimates.subList(0, Math.min(limit, estimates.size()));
+        Map<Long, Product> products = productCache.getAllById(top.stream().map(Estimate::productId).toList());
+        return top.stream()
+                .map(estimate -> {
+                    Product product = products.get(estimate.productId());
+                    return TrendingProductDto.builder()
+                            .productId(estimate.productId())
+                            .productName(product != null ? product.getName() : null)
+                            .value(toAmount(metric, estimate.value()))
+                            .maxError(toAmount(metric, estimate.error()))
+                            .build();
+                })
+                .toList();
+    }
+
+    private void record(List<SoldLine> lines, long now) {
+        for (Window window : Window.values()) {
+            rings.get(window).record(lines, now);
+        }
+    }
+
+    private Ranking ranking(Window window, Metric metric) {
+        long now = System.currentTimeMillis();
+        Map<Metric, Ranking> byMetric = rankings.computeIfAbsent(window, w -> new ConcurrentHashMap<>());
+        Ranking ranking = byMetric.get(metric);
+        if (ranking == null || now - ranking.computedAt() >= refreshIntervalMs) {
+            ranking = new Ranking(now, rings.get(window).merge(metric, now));
+            byMetric.put(metric, ranking);
+        }
+        return ranking;
+    }
+
+    private static BigDecimal toAmount(Metric metric, long value) {
+        return metric == Metric.REVENUE ? Money.fromMinor(value) : BigDecimal.valueOf(value);
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+        private final SpaceSaving units;
+        private final SpaceSaving revenue;
+
+        private Bucket(long epoch, int capacity) {
+            this.epoch = epoch;
+            this.units = new SpaceSaving(capacity);
+            this.revenue = new SpaceSaving(capacity);
+        }
+
+        private SpaceSaving summary(Metric metric) {
+            return metric == Metric.UNITS ? units : revenue;
+        }
+    }
+
+    private static final class Ring {
+        private final Window window;
+        private final int capacity;
+        private final Bucket[] buckets;
+
+        private Ring(Window window, int capacity) {
+            this.window = window;
+            this.capacity = capacity;
+            this.buckets = new Bucket[window.buckets];
+        }
+
+        private synchronized void record(List<SoldLine> lines, long now) {
+            long epoch = now / window.bucketMs;
+            int index = (int) (epoch % buckets.length);
+            Bucket bucket = buckets[index];
+            if (bucket == null || bucket.epoch != epoch) {
+                bucket = new Bucket(epoch, capacity);
+                buckets[index] = bucket;
+            }
+            for (SoldLine line : lines) {
+                bucket.units.add(line.productId(), line.quantity());
+                bucket.revenue.add(line.productId(), Money.toMinor(line.revenue()));
+            }
+        }
+
+        /**
+         * Sums the live buckets. A product missing from a full bucket may still have sold up to
+         * that bucket's smallest count there, so that is added to both its value and its error.
+         */
+        private synchronized List<Estimate> merge(Metric metric, long now) {
+            long currentEpoch = now / window.bucketMs;
+            // productId -> {sum of counts, sum of errors, sum of minCount over buckets it is in}
+            Map<Long, long[]> sums = new HashMap<>();
+            long minTotal = 0;
+            for (Bucket bucket : buckets) {
+                if (bucket == null || currentEpoch - bucket.epoch >= buckets.length) {
+                    continue;
+                }
+                SpaceSaving summary = bucket.summary(metric);
+                long min = summary.minCount();
+                minTotal += min;
+                summary.forEach((key, count, error) -> {
+                    long[] sum = sums.computeIfAbsent(key, k -> new long[3]);
+                    sum[0] += count;
+                    sum[1] += error;
+                    sum[2] += min;
+                });
+            }
+            long absentBound = minTotal;
+            List<Estimate> estimates = new ArrayList<>(sums.size());
+            sums.forEach((productId, sum) -> estimates.add(new Estimate(productId,
+                    sum[0] + absentBound - sum[2], sum[1] + absentBound - sum[2])));
+            estimates.sort(Comparator.comparingLong(Estimate::value).reversed()
+                    .thenComparingLong(Estimate::error));
+            return estimates.size() > capacity ? List.copyOf(estimates.subList(0, capacity)) : estimates;
+        }
+    }
+}
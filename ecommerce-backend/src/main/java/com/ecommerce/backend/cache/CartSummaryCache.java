@@ -0,0 +1,100 @@
+package com.ecommerce.backend.cache;
+
+import com.ecommerce.backend.dto.CartSummaryDto;
+import com.ecommerce.backend.entity.Cart;
+import com.ecommerce.backend.repository.CartRepository;
+import com.ecommerce.backend.util.TransactionUtils;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * Per-user cart badge counters (item count and total) for {@code /cart/count}, {@code /cart/total}
+ * and {@code /cart/summary}.
+ * <p>
+ * {@code CartService} writes the new totals after each mutation commits, so reads are served without
+ * touching the database. Entries carry the cart's version and a write never replaces a newer one,
+ * so commits finishing out of order cannot leave an older total behind. Changes made on another
+ * node show up once the entry expires after {@code cache.cart-summary.ttl}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CartSummaryCache {
+
+    private static final CartSummaryDto EMPTY = new CartSummaryDto(0, BigDecimal.ZERO);
+
+    private final CartRepository cartRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${cache.cart-summary.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.cart-summary.max-size:100000}")
+    private long maxSize;
+
+    @Value("${cache.cart-summary.ttl:60000}")
+    private long ttlMs;
+
+    private LoadingCache<Long, Entry> summaries;
+
+    @PostConstruct
+    void init() {
+        summaries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build(userId -> new Entry(load(userId), -1L));
+        CaffeineCacheMetrics.monitor(meterRegistry, summaries, "carts.summary");
+        log.info("Cart summary cache enabled: {}, max size: {}, ttl: {} ms", enabled, maxSize, ttlMs);
+    }
+
+    public CartSummaryDto get(Long userId) {
+        if (!enabled) {
+            return load(userId);
+        }
+        return summaries.get(userId).summary();
+    }
+
+    /**
+     * Publishes the cart's totals once the current transaction commits. The values are read at
+     * that point, after the flush has bumped the cart's version.
+     */
+    public void putAfterCommit(Long userId, Cart cart) {
+        if (!enabled) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            long version = cart.getVersion() != null ? cart.getVersion() : 0L;
+            Entry entry = new Entry(new CartSummaryDto(cart.getTotalItems(), cart.getTotalAmount()), version);
+            summaries.asMap().merge(userId, entry,
+                    (current, candidate) -> candidate.version() >= current.version() ? candidate : current);
+        });
+    }
+
+    public void evictAfterCommit(Long userId) {
+        if (enabled) {
+            TransactionUtils.afterCommit(() -> summaries.invalidate(userId));
+        }
+    }
+
+    private CartSummaryDto load(Long userId) {
+        return cartRepository.findSummaryByUserId(userId)
+                .map(summary -> new CartSummaryDto(
+                        summary.getTotalItems() != null ? summary.getTotalItems() : 0,
+                        summary.getTotalAmount() != null ? summary.getTotalAmount() : BigDecimal.ZERO))
+                .orElse(EMPTY);
+    }
+
+    private record Entry(CartSummaryDto summary, long version) {
+    }
+}
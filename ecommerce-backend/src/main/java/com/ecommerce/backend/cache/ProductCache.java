@@ -0,0 +1,203 @@
+package com.ecommerce.backend.cache;
+
+import com.ecommerce.backend.entity.Product;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.util.TransactionUtils;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache of active products by id and by SKU.
+ * <p>
+ * Entries are detached snapshots and must not be modified by callers. Writes made through
+ * {@code ProductService} update the cache only after their transaction commits. Stock changes
+ * either evict the entry or apply the same delta to it, depending on {@code cache.product.stock-sync};
+ * {@code cache.product.stock-max-staleness} bounds how old a served stock figure can be before it is
+ * reloaded in the background. Hit/miss counts are exported as {@code cache.*} metrics.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCache {
+
+    public enum StockSync {
+        EVICT,
+        ADJUST
+    }
+
+    private final ProductRepository productRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${cache.product.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.product.max-size:10000}")
+    private long maxSize;
+
+    @Value("${cache.product.ttl:600000}")
+    private long ttlMs;
+
+    @Value("${cache.product.stock-sync:evict}")
+    private String stockSyncSetting;
+
+    @Value("${cache.product.stock-max-staleness:30000}")
+    private long stockMaxStalenessMs;
+
+    private StockSync stockSync;
+    private LoadingCache<Long, Product> byId;
+    private LoadingCache<String, Long> idBySku;
+
+    @PostConstruct
+    void init() {
+        stockSync = StockSync.valueOf(stockSyncSetting.trim().toUpperCase());
+
+        Caffeine<Object, Object> productBuilder = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats();
+        if (stockMaxStalenessMs > 0 && stockMaxStalenessMs < ttlMs) {
+            productBuilder.refreshAfterWrite(Duration.ofMillis(stockMaxStalenessMs));
+        }
+        byId = productBuilder.build(new CacheLoader<Long, Product>() {
+            @Override
+            public Product load(Long id) {
+                return productRepository.findByIdAndActiveTrue(id).orElse(null);
+            }
+
+            @Override
+            public Map<Long, Product> loadAll(Set<? extends Long> ids) {
+                return loadActive(ids);
+            }
+        });
+
+        idBySku = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build(this::loadIdBySku);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "products.by-id");
+        CaffeineCacheMetrics.monitor(meterRegistry, idBySku, "products.by-sku");
+        log.info("Product cache enabled: {}, max size: {}, ttl: {} ms, stock sync: {}",
+                enabled, maxSize, ttlMs, stockSync);
+    }
+
+    public Optional<Product> getById(Long id) {
+        if (!enabled) {
+            return productRepository.findByIdAndActiveTrue(id);
+        }
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    /**
+     * Looks up several products at once; misses are loaded with a single IN query. Inactive and
+     * unknown ids are absent from the result.
+     */
+    public Map<Long, Product> getAllById(Collection<Long> ids) {
+        if (!enabled) {
+            return loadActive(ids);
+        }
+        return byId.getAll(ids);
+    }
+
+    public Optional<Product> getBySku(String sku) {
+        if (!enabled) {
+            return productRepository.findBySku(sku).filter(Product::isActive);
+        }
+        Long id = idBySku.get(sku);
+        return id != null ? getById(id) : Optional.empty();
+    }
+
+    public void putAfterCommit(Product product) {
+        if (!enabled || product.getId() == null) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            if (product.isActive()) {
+                byId.put(product.getId(), product);
+                if (product.getSku() != null) {
+                    idBySku.put(product.getSku(), product.getId());
+                }
+            } else {
+                evict(product.getId());
+            }
+        });
+    }
+
+    public void evictAfterCommit(Long id) {
+        if (enabled) {
+            TransactionUtils.afterCommit(() -> evict(id));
+        }
+    }
+
+    /**
+     * Keeps the cached stock in line with a committed {@code decreaseStock}/{@code increaseStock}.
+     */
+    public void onStockChangedAfterCommit(Long id, int delta) {
+        if (!enabled) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            if (stockSync == StockSync.ADJUST) {
+                byId.asMap().computeIfPresent(id, (key, product) ->
+                        withStock(product, Math.max(0, product.getStockQuantity() + delta)));
+            } else {
+                byId.invalidate(id);
+            }
+        });
+    }
+
+    // Cached instances are shared with concurrent readers, so the new figure goes into a copy
+    private static Product withStock(Product product, int stockQuantity) {
+        Product copy = new Product(product.getName(), product.getDescription(), product.getPrice(),
+                product.getCategory(), stockQuantity, product.getSku(), product.getBrand(), product.getImageUrl(),
+                product.getTags(), product.getWeight(), product.getDimensions(), product.isActive(),
+                product.getStockEpoch());
+        copy.setId(product.getId());
+        copy.setCreatedAt(product.getCreatedAt());
+        copy.setUpdatedAt(product.getUpdatedAt());
+        copy.setVersion(product.getVersion());
+        return copy;
+    }
+
+    private void evict(Long id) {
+        Product cached = byId.getIfPresent(id);
+        if (cached != null && cached.getSku() != null) {
+            idBySku.invalidate(cached.getSku());
+        }
+        byId.invalidate(id);
+    }
+
+    private Map<Long, Product> loadActive(Collection<? extends Long> ids) {
+        return productRepository.findAllById(List.<Long>copyOf(ids)).stream()
+                .filter(Product::isActive)
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+    }
+
+    private Long loadIdBySku(String sku) {
+        return productRepository.findBySku(sku)
+                .filter(Product::isActive)
+                .map(product -> {
+                    byId.put(product.getId(), product);
+                    return product.getId();
+                })
+                .orElse(null);
+    }
+}
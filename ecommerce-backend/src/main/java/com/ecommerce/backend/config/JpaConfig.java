@@ -1,9 +1,30 @@
 package com.ecommerce.backend.config;
 
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 @EnableJpaAuditing
-public class JpaConfig {
-}
\ No newline at end of file
+public class JpaConfig implements WebMvcConfigurer {
+
+    /**
+     * Open session in view, registered here instead of by spring.jpa.open-in-view so that it can
+     * leave out /auth/**. A request's entity manager keeps the first connection it uses until the
+     * response is written, which on login would hold it through the wait for a hashing slot and the
+     * hash itself.
+     */
+    @Bean
+    public OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor() {
+        return new OpenEntityManagerInViewInterceptor();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addWebRequestInterceptor(openEntityManagerInViewInterceptor())
+                .excludePathPatterns("/auth/**");
+    }
+}
@@ -0,0 +1,172 @@
+package com.ecommerce.backend.controller;
+
+import com.ecommerce.backend.analytics.DistinctCountTracker;
+import com.ecommerce.backend.analytics.SalesAnalyticsService;
+import com.ecommerce.backend.analytics.SalesRollupService;
+import com.ecommerce.backend.analytics.TrendingProductsTracker;
+import com.ecommerce.backend.analytics.TrendingProductsTracker.Metric;
+import com.ecommerce.backend.analytics.TrendingProductsTracker.Window;
+import com.ecommerce.backend.dto.ApiResponse;
+import com.ecommerce.backend.dto.DailySalesDto;
+import com.ecommerce.backend.dto.DistinctCountDto;
+import com.ecommerce.backend.dto.ProductSalesDto;
+import com.ecommerce.backend.dto.TrendingProductDto;
+import com.ecommerce.backend.entity.OrderStatus;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/analytics")
+@RequiredArgsConstructor
+@Slf4j
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Admin Analytics", description = "Sales figures for the admin dashboard")
+public class AdminAnalyticsController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final SalesAnalyticsService salesAnalyticsService;
+    private final SalesRollupService salesRollupService;
+    private final TrendingProductsTracker trendingProductsTracker;
+    private final DistinctCountTracker distinctCountTracker;
+
+    @GetMapping("/sales/daily")
+    @Operation(summary = "Daily sales", description = "Order count and revenue per day")
+    public ResponseEntity<ApiResponse<List<DailySalesDto>>> getDailySales(
+            @Parameter(description = "First day (ISO date), defaults to 30 days ago")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since) {
+
+        return ResponseEntity.ok(ApiResponse.success(salesAnalyticsService.getDailySales(sinceOrDefault(since))));
+    }
+
+    @GetMapping("/sales/revenue")
+    @Operation(summary = "Revenue", description = "Revenue of orders placed between two days, both inclusive")
+    public ResponseEntity<ApiResponse<BigDecimal>> getRevenue(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        return ResponseEntity.ok(ApiResponse.success(salesAnalyticsService.getRevenue(from, to)));
+    }
+
+    @GetMapping("/orders/status")
+    @Operation(summary = "Orders by status", description = "Number of orders in each status")
+    public ResponseEntity<ApiResponse<Map<OrderStatus, Long>>> getOrderCountByStatus() {
+        return ResponseEntity.ok(ApiResponse.success(salesAnalyticsService.getOrderCountByStatus()));
+    }
+
+    @GetMapping("/products/top-selling")
+    @Operation(summary = "Top-selling products", description = "Products with the most units sold")
+    public ResponseEntity<ApiResponse<List<ProductSalesDto>>> getTopSellingProducts(
+            @Parameter(description = "First day (ISO date), defaults to 30 days ago")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since,
+            @Parameter(description = "Number of products") @RequestParam(defaultValue = "10") int limit) {
+
+        return ResponseEntity.ok(ApiResponse.success(
+                salesAnalyticsService.getTopSellingProducts(sinceOrDefault(since), clampLimit(limit))));
+    }
+
+    @GetMapping("/products/top-revenue")
+    @Operation(summary = "Top products by revenue", description = "Products with the highest revenue")
+    public ResponseEntity<ApiResponse<List<ProductSalesDto>>> getTopRevenueProducts(
+            @Parameter(description = "First day (ISO date), defaults to 30 days ago")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since,
+            @Parameter(description = "Number of products") @RequestParam(defaultValue = "10") int limit) {
+
+        return ResponseEntity.ok(ApiResponse.success(
+                salesAnalyticsService.getTopRevenueProducts(sinceOrDefault(since), clampLimit(limit))));
+    }
+
+    @GetMapping("/products/trending")
+    @Operation(summary = "Trending products",
+               description = "Top products by units or revenue over a recent window, from this node's in-memory tracker")
+    public ResponseEntity<ApiResponse<List<TrendingProductDto>>> getTrendingProducts(
+            @Parameter(description = "Window (FIVE_MINUTES, HOUR, DAY)") @RequestParam(defaultValue = "HOUR") Window window,
+            @Parameter(description = "Ranking (UNITS, REVENUE)") @RequestParam(defaultValue = "REVENUE") Metric metric,
+            @Parameter(description = "Number of products") @RequestParam(defaultValue = "10") int limit) {
+
+        return ResponseEntity.ok(ApiResponse.success(trendingProductsTracker.getTop(window, metric, clampLimit(limit))));
+    }
+
+    @GetMapping("/users/active")
+    @Operation(summary = "Active users", description = "Approximate number of distinct users who logged in or ordered over the last 1, 7 or 30 days")
+    public ResponseEntity<ApiResponse<DistinctCountDto>> getActiveUsers(
+            @Parameter(description = "Days, ending today") @RequestParam(defaultValue = "1") int days) {
+
+        return ResponseEntity.ok(ApiResponse.success(distinctCount(DistinctCountTracker.Metric.ACTIVE_USERS, "",
+                LocalDate.now().minusDays(clampDays(days) - 1L))));
+    }
+
+    @GetMapping("/users/buyers")
+    @Operation(summary = "Unique buyers", description = "Approximate number of distinct users who placed an order")
+    public ResponseEntity<ApiResponse<DistinctCountDto>> getUniqueBuyers(
+            @Parameter(description = "First day (ISO date), defaults to 30 days ago")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since) {
+
+        return ResponseEntity.ok(ApiResponse.success(
+                distinctCount(DistinctCountTracker.Metric.BUYERS, "", sinceOrDefault(since))));
+    }
+
+    @GetMapping("/products/{productId}/buyers")
+    @Operation(summary = "Unique buyers of a product", description = "Approximate number of distinct users who bought the product")
+    public ResponseEntity<ApiResponse<DistinctCountDto>> getProductBuyers(
+            @PathVariable Long productId,
+            @Parameter(description = "First day (ISO date), defaults to 30 days ago")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since) {
+
+        return ResponseEntity.ok(ApiResponse.success(
+                distinctCount(DistinctCountTracker.Metric.PRODUCT_BUYERS, String.valueOf(productId), sinceOrDefault(since))));
+    }
+
+    @GetMapping("/categories/{category}/buyers")
+    @Operation(summary = "Unique buyers in a category", description = "Approximate number of distinct users who bought from the category")
+    public ResponseEntity<ApiResponse<DistinctCountDto>> getCategoryBuyers(
+            @PathVariable String category,
+            @Parameter(description = "First day (ISO date), defaults to 30 days ago")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since) {
+
+        return ResponseEntity.ok(ApiResponse.success(
+                distinctCount(DistinctCountTracker.Metric.CATEGORY_BUYERS, category, sinceOrDefault(since))));
+    }
+
+    @PostMapping("/rollups/rebuild")
+    @Operation(summary = "Rebuild sales rollups", description = "Recompute all sales rollups from the order tables")
+    public ResponseEntity<ApiResponse<Void>> rebuildRollups() {
+        log.info("Sales rollup rebuild requested");
+        salesRollupService.rebuild();
+        return ResponseEntity.ok(ApiResponse.success("Sales rollups rebuilt", null));
+    }
+
+    private static LocalDate sinceOrDefault(LocalDate since) {
+        return since != null ? since : LocalDate.now().minusDays(30);
+    }
+
+    private DistinctCountDto distinctCount(DistinctCountTracker.Metric metric, String dimension, LocalDate since) {
+        LocalDate today = LocalDate.now();
+        return DistinctCountDto.builder()
+                .from(since)
+                .to(today)
+                .estimate(distinctCountTracker.estimate(metric, dimension, since, today))
+                .standardError(distinctCountTracker.standardError(metric))
+                .build();
+    }
+
+    private static int clampDays(int days) {
+        return Math.max(1, Math.min(days, 366));
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
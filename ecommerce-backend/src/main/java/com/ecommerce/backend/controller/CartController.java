@@ -2,7 +2,9 @@ package com.ecommerce.backend.controller;
 
 import com.ecommerce.backend.dto.ApiResponse;
 import com.ecommerce.backend.dto.CartDto;
+import com.ecommerce.backend.dto.CartItemOperation;
 import com.ecommerce.backend.dto.CartItemDto;
+import com.ecommerce.backend.dto.CartSummaryDto;
 import com.ecommerce.backend.entity.Cart;
 import com.ecommerce.backend.service.CartService;
 import com.ecommerce.backend.util.UserUtil;
@@ -11,7 +13,9 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -39,8 +43,7 @@ public class CartController {
         log.info("Getting cart for user");
         
         Long userId = UserUtil.getCurrentUserId(authentication);
-        Cart cart = cartService.getOrCreateCart(userId);
-        CartDto cartDto = convertToCartDto(cart);
+        CartDto cartDto = cartService.getCartView(userId);
 
         return ResponseEntity.ok(ApiResponse.success("Cart retrieved successfully", cartDto));
     }
@@ -78,6 +81,23 @@ public class CartController {
         return ResponseEntity.ok(ApiResponse.success("Cart item updated successfully", cartDto));
     }
 
+    @PatchMapping("/items")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Batch update cart items",
+               description = "Apply a list of add/set/remove operations to the cart in one transaction")
+    public ResponseEntity<ApiResponse<CartDto>> applyCartOperations(
+            @Valid @RequestBody BatchCartRequest request,
+            Authentication authentication) {
+
+        log.info("Applying {} cart operations", request.operations.size());
+
+        Long userId = UserUtil.getCurrentUserId(authentication);
+        Cart cart = cartService.applyCartOperations(userId, request.operations);
+        CartDto cartDto = convertToCartDto(cart);
+
+        return ResponseEntity.ok(ApiResponse.success("Cart updated successfully", cartDto));
+    }
+
     @DeleteMapping("/items/{itemId}")
     @PreAuthorize("hasRole('USER')")
     @Operation(summary = "Remove item from cart", description = "Remove an item from the user's shopping cart")
@@ -106,6 +126,16 @@ public class CartController {
         return ResponseEntity.ok(ApiResponse.success("Cart cleared successfully", "Cart is now empty"));
     }
 
+    @GetMapping("/summary")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Get cart summary", description = "Get the item count and total amount of the user's cart in one call")
+    public ResponseEntity<ApiResponse<CartSummaryDto>> getCartSummary(Authentication authentication) {
+        Long userId = UserUtil.getCurrentUserId(authentication);
+        CartSummaryDto summary = cartService.getCartSummary(userId);
+
+        return ResponseEntity.ok(ApiResponse.success("Cart summary retrieved successfully", summary));
+    }
+
     @GetMapping("/count")
     @PreAuthorize("hasRole('USER')")
     @Operation(summary = "Get cart item count", description = "Get the total number of items in the user's cart")
@@ -181,4 +211,10 @@ public class CartController {
         @Min(value = 1, message = "Quantity must be at least 1")
         public Integer quantity;
     }
+
+    public static class BatchCartRequest {
+        @NotEmpty(message = "At least one operation is required")
+        @Size(max = 100, message = "At most 100 operations per request")
+        public List<@Valid CartItemOperation> operations;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.ecommerce.backend.controller;
+
+import com.ecommerce.backend.security.JwtKeyRing;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/.well-known")
+@RequiredArgsConstructor
+@Tag(name = "Authentication", description = "Authentication management APIs")
+public class JwksController {
+
+    private final JwtKeyRing keyRing;
+
+    @Operation(
+        summary = "JSON Web Key Set",
+        description = "Public keys that verify the access and refresh tokens issued by this service"
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Key set returned")
+    })
+    @GetMapping("/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        // Keys are published a full rotation interval before they sign, so a short cache is safe
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .body(Map.of("keys", keyRing.publicJwks()));
+    }
+}
@@ -0,0 +1,123 @@
+package com.ecommerce.backend.controller;
+
+import com.ecommerce.backend.dto.ApiResponse;
+import com.ecommerce.backend.dto.CheckoutRequest;
+import com.ecommerce.backend.dto.CursorPage;
+import com.ecommerce.backend.dto.OrderDto;
+import com.ecommerce.backend.dto.StockReservationDto;
+import com.ecommerce.backend.entity.OrderStatus;
+import com.ecommerce.backend.order.OrderExporter;
+import com.ecommerce.backend.order.OrderExporter.Format;
+import com.ecommerce.backend.service.OrderService;
+import com.ecommerce.backend.util.UserUtil;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/orders")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Orders", description = "APIs for placing and viewing orders")
+public class OrderController {
+
+    private final OrderService orderService;
+    private final OrderExporter orderExporter;
+
+    @PostMapping
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Checkout", description = "Place an order for the items in the user's cart and empty the cart")
+    public ResponseEntity<ApiResponse<OrderDto>> checkout(
+            @Valid @RequestBody CheckoutRequest request,
+            Authentication authentication) {
+
+        Long userId = UserUtil.getCurrentUserId(authentication);
+        log.info("Checkout for user {}", userId);
+
+        OrderDto order = orderService.checkout(userId, request);
+
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success("Order placed successfully", order));
+    }
+
+    @PostMapping("/checkout/reserve")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Reserve stock for checkout",
+               description = "Hold stock for the items in the user's cart; pass the reservation id to checkout")
+    public ResponseEntity<ApiResponse<StockReservationDto>> reserveStock(Authentication authentication) {
+        Long userId = UserUtil.getCurrentUserId(authentication);
+        StockReservationDto reservation = orderService.reserveCart(userId);
+
+        return ResponseEntity.ok(ApiResponse.success("Stock reserved successfully", reservation));
+    }
+
+    @GetMapping("/history")
+    @PreAuthorize("hasRole('USER')")
+    @Operation(summary = "Order history",
+               description = "The user's orders with their items, newest first; pass nextCursor back to get the next page")
+    public ResponseEntity<ApiResponse<CursorPage<OrderDto>>> getOrderHistory(
+            @Parameter(description = "Opaque cursor from the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+
+        Long userId = UserUtil.getCurrentUserId(authentication);
+        CursorPage<OrderDto> orders = orderService.getOrderHistory(userId, cursor, Math.max(1, Math.min(size, 100)));
+
+        return ResponseEntity.ok(ApiResponse.success("Orders retrieved successfully", orders));
+    }
+
+    @PatchMapping("/admin/{orderId}/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Update order status",
+               description = "Move an order along PENDING, PROCESSING, SHIPPED, DELIVERED, or cancel it before shipping")
+    public ResponseEntity<ApiResponse<Void>> updateStatus(
+            @PathVariable Long orderId,
+            @RequestParam OrderStatus status) {
+
+        orderService.updateStatus(orderId, status);
+        return ResponseEntity.ok(ApiResponse.success("Order status updated", null));
+    }
+
+    @GetMapping("/admin/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Export orders",
+               description = "Stream orders, optionally with their items, as CSV or NDJSON (one order per line)")
+    public void exportOrders(
+            @Parameter(description = "CSV or NDJSON") @RequestParam(defaultValue = "CSV") Format format,
+            @Parameter(description = "Include order items") @RequestParam(defaultValue = "false") boolean items,
+            @RequestParam(required = false) OrderStatus status,
+            @Parameter(description = "First order day (ISO date), inclusive")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last order day (ISO date), inclusive")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletResponse response) throws IOException {
+
+        String extension = format == Format.CSV ? "csv" : "ndjson";
+        response.setContentType(format == Format.CSV ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"orders-" + LocalDate.now() + "." + extension + "\"");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+
+        try {
+            orderExporter.export(new OrderExporter.Filter(status, from, to), format, items, response.getOutputStream());
+        } catch (UncheckedIOException e) {
+            // The response is already partly written; nothing useful can be sent back
+            log.info("Order export aborted by the client: {}", e.getMessage());
+        }
+    }
+}
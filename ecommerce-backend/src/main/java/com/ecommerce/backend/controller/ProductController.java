@@ -1,6 +1,11 @@
 package com.ecommerce.backend.controller;
 
+import com.ecommerce.backend.analytics.TrendingProductsTracker;
+import com.ecommerce.backend.analytics.TrendingProductsTracker.Metric;
+import com.ecommerce.backend.analytics.TrendingProductsTracker.Window;
 import com.ecommerce.backend.dto.ApiResponse;
+import com.ecommerce.backend.dto.CursorPage;
+import com.ecommerce.backend.dto.TrendingProductDto;
 import com.ecommerce.backend.entity.Product;
 import com.ecommerce.backend.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -19,6 +24,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @Tag(name = "Products", description = "Product management APIs")
 @RestController
 @RequestMapping("/products")
@@ -27,6 +34,7 @@ import org.springframework.web.bind.annotation.*;
 public class ProductController {
 
     private final ProductService productService;
+    private final TrendingProductsTracker trendingProductsTracker;
 
     @Operation(summary = "Get all products", description = "Retrieve a paginated list of products")
     @GetMapping
@@ -54,6 +62,41 @@ public class ProductController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "Get products by cursor",
+               description = "Retrieve active products with keyset pagination; pass nextCursor back to get the next page")
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<Product>>> getProductsByCursor(
+            @Parameter(description = "Opaque cursor from the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Sort field (id, price, createdAt)") @RequestParam(defaultValue = "id") String sortBy,
+            @Parameter(description = "Sort direction") @RequestParam(defaultValue = "asc") String sortDir) {
+        
+        log.debug("Fetching products by cursor - size: {}, sortBy: {}, sortDir: {}", size, sortBy, sortDir);
+        
+        int pageSize = Math.max(1, Math.min(size, 100));
+        CursorPage<Product> products = productService.getProductsByCursor(cursor, pageSize, sortBy, sortDir);
+        
+        ApiResponse<CursorPage<Product>> response = ApiResponse.<CursorPage<Product>>builder()
+                .success(true)
+                .message("Products retrieved successfully")
+                .data(products)
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Get trending products",
+               description = "Best-selling products by units over a recent window; figures are upper bounds within maxError")
+    @GetMapping("/trending")
+    public ResponseEntity<ApiResponse<List<TrendingProductDto>>> getTrendingProducts(
+            @Parameter(description = "Window (FIVE_MINUTES, HOUR, DAY)") @RequestParam(defaultValue = "HOUR") Window window,
+            @Parameter(description = "Number of products") @RequestParam(defaultValue = "10") int limit) {
+
+        List<TrendingProductDto> products = trendingProductsTracker.getTop(window, Metric.UNITS, Math.max(1, Math.min(limit, 100)));
+
+        return ResponseEntity.ok(ApiResponse.success("Trending products retrieved successfully", products));
+    }
+
     @Operation(summary = "Get product by ID", description = "Retrieve a single product by its ID")
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<Product>> getProductById(
@@ -72,6 +115,24 @@ public class ProductController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "Get product by SKU", description = "Retrieve a single product by its SKU")
+    @GetMapping("/sku/{sku}")
+    public ResponseEntity<ApiResponse<Product>> getProductBySku(
+            @Parameter(description = "Product SKU") @PathVariable String sku) {
+        
+        log.info("Fetching product with sku: {}", sku);
+        
+        Product product = productService.getProductBySku(sku);
+        
+        ApiResponse<Product> response = ApiResponse.<Product>builder()
+                .success(true)
+                .message("Product retrieved successfully")
+                .data(product)
+                .build();
+        
+        return ResponseEntity.ok(response);
+    }
+
     @Operation(summary = "Create new product", description = "Create a new product (Admin only)", 
                security = @SecurityRequirement(name = "bearer-key"))
     @PostMapping
@@ -0,0 +1,33 @@
+package com.ecommerce.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "One edit in a batch cart update; operations are applied in order")
+public class CartItemOperation {
+
+    public enum Type {
+        ADD,
+        SET,
+        REMOVE
+    }
+
+    @Schema(description = "ADD increases the quantity, SET replaces it, REMOVE drops the product", required = true)
+    @NotNull(message = "Operation is required")
+    private Type op;
+
+    @Schema(description = "Product the operation applies to", required = true)
+    @NotNull(message = "Product ID is required")
+    private Long productId;
+
+    @Schema(description = "Quantity for ADD and SET")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private Integer quantity;
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.backend.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartSummaryDto {
+
+    private Integer totalItems;
+    private BigDecimal totalAmount;
+}
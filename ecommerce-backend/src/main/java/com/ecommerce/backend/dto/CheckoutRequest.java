@@ -0,0 +1,62 @@
+package com.ecommerce.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Checkout request that turns the current cart into an order")
+public class CheckoutRequest {
+
+    @Schema(description = "Shipping address", required = true)
+    @NotNull(message = "Shipping address is required")
+    @Valid
+    private ShippingAddress shippingAddress;
+
+    @Schema(description = "Payment method", example = "CREDIT_CARD")
+    @Size(max = 50, message = "Payment method cannot exceed 50 characters")
+    private String paymentMethod;
+
+    @Schema(description = "Order notes")
+    @Size(max = 1000, message = "Notes cannot exceed 1000 characters")
+    private String notes;
+
+    @Schema(description = "Stock reservation taken earlier for this cart; stock is held at checkout time when omitted")
+    private String reservationId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ShippingAddress {
+
+        @NotBlank(message = "Address line 1 is required")
+        @Size(max = 255, message = "Address line 1 cannot exceed 255 characters")
+        private String addressLine1;
+
+        @Size(max = 255, message = "Address line 2 cannot exceed 255 characters")
+        private String addressLine2;
+
+        @NotBlank(message = "City is required")
+        @Size(max = 100, message = "City cannot exceed 100 characters")
+        private String city;
+
+        @NotBlank(message = "State is required")
+        @Size(max = 100, message = "State cannot exceed 100 characters")
+        private String state;
+
+        @NotBlank(message = "Postal code is required")
+        @Size(max = 20, message = "Postal code cannot exceed 20 characters")
+        private String postalCode;
+
+        @NotBlank(message = "Country is required")
+        @Size(max = 100, message = "Country cannot exceed 100 characters")
+        private String country;
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.backend.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    // Pass back as ?cursor= to fetch the next page; null on the last page
+    private String nextCursor;
+}
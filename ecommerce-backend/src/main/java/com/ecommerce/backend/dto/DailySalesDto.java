@@ -0,0 +1,17 @@
+package com.ecommerce.backend.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailySalesDto {
+
+    private LocalDate date;
+    private long orderCount;
+    private BigDecimal revenue;
+}
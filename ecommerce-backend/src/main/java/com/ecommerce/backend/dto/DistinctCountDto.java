@@ -0,0 +1,18 @@
+package com.ecommerce.backend.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DistinctCountDto {
+
+    private LocalDate from;
+    private LocalDate to;
+    private long estimate;
+    // Relative standard error of the estimate, e.g. 0.016
+    private double standardError;
+}
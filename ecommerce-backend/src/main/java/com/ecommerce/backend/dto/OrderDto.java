@@ -0,0 +1,28 @@
+package com.ecommerce.backend.dto;
+
+import com.ecommerce.backend.entity.OrderStatus;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderDto {
+
+    private Long id;
+    private String orderNumber;
+    private OrderStatus status;
+    private LocalDateTime orderDate;
+    private List<OrderItemDto> items;
+    private Integer totalItems;
+    private BigDecimal totalAmount;
+    private String shippingAddress;
+    private String paymentMethod;
+    private String paymentStatus;
+    private String trackingNumber;
+    private String notes;
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.backend.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderItemDto {
+
+    private Long id;
+    private Long productId;
+    private String productName;
+    private String productSku;
+    private BigDecimal unitPrice;
+    private Integer quantity;
+    private BigDecimal subTotal;
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.backend.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSalesDto {
+
+    private Long productId;
+    private String productName;
+    private long quantity;
+    private BigDecimal revenue;
+}
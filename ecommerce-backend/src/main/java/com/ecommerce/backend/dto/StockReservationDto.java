@@ -0,0 +1,17 @@
+package com.ecommerce.backend.dto;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationDto {
+
+    private String reservationId;
+    private Map<Long, Integer> lines;
+    private Instant expiresAt;
+}
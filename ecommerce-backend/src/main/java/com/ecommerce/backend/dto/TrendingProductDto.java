@@ -0,0 +1,19 @@
+package com.ecommerce.backend.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingProductDto {
+
+    private Long productId;
+    private String productName;
+    // Units or revenue, never below the true figure
+    private BigDecimal value;
+    // How far value may overstate the true figure
+    private BigDecimal maxError;
+}
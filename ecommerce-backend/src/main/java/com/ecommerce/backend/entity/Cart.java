@@ -1,5 +1,6 @@
 package com.ecommerce.backend.entity;
 
+import com.ecommerce.backend.util.Money;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -31,6 +32,10 @@ public class Cart extends BaseEntity {
     @Column(name = "total_amount", precision = 19, scale = 2)
     private BigDecimal totalAmount;
 
+    // Running total in minor units, adjusted per item change; totalAmount mirrors it
+    @Column(name = "total_amount_minor")
+    private Long totalAmountMinor;
+
     @Column(name = "total_items")
     @Builder.Default
     private Integer totalItems = 0;
@@ -38,28 +43,56 @@ public class Cart extends BaseEntity {
     public void addCartItem(CartItem cartItem) {
         cartItems.add(cartItem);
         cartItem.setCart(this);
-        updateTotals();
+        adjustTotals(cartItem.getQuantity(), Money.toMinor(cartItem.getSubTotal()));
     }
 
     public void removeCartItem(CartItem cartItem) {
         cartItems.remove(cartItem);
         cartItem.setCart(null);
-        updateTotals();
+        adjustTotals(-cartItem.getQuantity(), -Money.toMinor(cartItem.getSubTotal()));
+    }
+
+    /**
+     * Records a quantity change made with {@link CartItem#updateQuantity} on one of this cart's items.
+     */
+    public void onItemQuantityChanged(CartItem cartItem, int previousQuantity) {
+        int quantityDelta = cartItem.getQuantity() - previousQuantity;
+        adjustTotals(quantityDelta, Money.toMinor(cartItem.getUnitPrice()) * quantityDelta);
+    }
+
+    /**
+     * Moves the totals by one item change, without touching the other items (or loading them).
+     */
+    public void adjustTotals(int quantityDelta, long amountMinorDelta) {
+        this.totalItems = (totalItems != null ? totalItems : 0) + quantityDelta;
+        this.totalAmountMinor = getTotalAmountMinor() + amountMinorDelta;
+        this.totalAmount = Money.fromMinor(totalAmountMinor);
     }
 
     public void clearCart() {
         cartItems.clear();
-        updateTotals();
+        resetTotals();
+    }
+
+    public void resetTotals() {
+        this.totalItems = 0;
+        this.totalAmountMinor = 0L;
+        this.totalAmount = Money.fromMinor(0L);
     }
 
+    /**
+     * Recomputes the totals from every item. Item changes keep the totals current on their own;
+     * this is the reconciliation pass, used at checkout.
+     */
     public void updateTotals() {
         this.totalItems = cartItems.stream()
                 .mapToInt(CartItem::getQuantity)
                 .sum();
-        
-        this.totalAmount = cartItems.stream()
-                .map(CartItem::getSubTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        this.totalAmountMinor = cartItems.stream()
+                .mapToLong(item -> Money.toMinor(item.getSubTotal()))
+                .sum();
+        this.totalAmount = Money.fromMinor(totalAmountMinor);
     }
 
     public boolean isEmpty() {
@@ -76,4 +109,12 @@ public class Cart extends BaseEntity {
         }
         return totalAmount != null ? totalAmount : BigDecimal.ZERO;
     }
-}
\ No newline at end of file
+
+    public long getTotalAmountMinor() {
+        if (totalAmountMinor == null) {
+            // Rows written before the column existed only have the decimal total
+            totalAmountMinor = Money.toMinor(totalAmount);
+        }
+        return totalAmountMinor;
+    }
+}
@@ -0,0 +1,45 @@
+package com.ecommerce.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A day's HyperLogLog sketch for one distinct-count metric, serialized with
+ * {@link com.ecommerce.backend.util.HyperLogLog#toBytes()}. Nodes merge their own sketch into the
+ * row, so it always holds the union of everything flushed so far.
+ */
+@Entity
+@Table(name = "distinct_count_sketches",
+       uniqueConstraints = {
+           @UniqueConstraint(name = "uk_distinct_count_sketch", columnNames = {"metric", "dimension", "sketch_date"})
+       })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DistinctCountSketch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "metric", nullable = false, length = 30)
+    private String metric;
+
+    // Product id or category for per-product and per-category metrics, empty otherwise
+    @Column(name = "dimension", nullable = false, length = 100)
+    private String dimension;
+
+    @Column(name = "sketch_date", nullable = false)
+    private LocalDate sketchDate;
+
+    @Column(name = "registers", nullable = false, length = 65538)
+    private byte[] registers;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
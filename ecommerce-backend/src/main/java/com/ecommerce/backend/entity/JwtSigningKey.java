@@ -0,0 +1,52 @@
+package com.ecommerce.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Public half of a JWT signing key, published so every node (and the JWKS endpoint) can verify
+ * tokens signed with it. The private half never leaves the node that generated it.
+ */
+@Entity
+@Table(name = "jwt_signing_keys",
+       indexes = {
+           @Index(name = "idx_jwt_signing_key_verify_until", columnList = "verify_until")
+       })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JwtSigningKey implements Persistable<String> {
+
+    @Id
+    @Column(name = "kid", length = 36, nullable = false)
+    private String kid;
+
+    @Column(name = "algorithm", length = 10, nullable = false)
+    private String algorithm;
+
+    // X.509 SubjectPublicKeyInfo, Base64
+    @Column(name = "public_key", length = 512, nullable = false)
+    private String publicKey;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "verify_until", nullable = false)
+    private LocalDateTime verifyUntil;
+
+    // Rows are only ever inserted, so save() can persist without a select first
+    @Override
+    public String getId() {
+        return kid;
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
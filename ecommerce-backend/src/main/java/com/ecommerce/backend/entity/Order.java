@@ -16,7 +16,8 @@ import java.util.UUID;
     @Index(name = "idx_order_user", columnList = "user_id"),
     @Index(name = "idx_order_status", columnList = "status"),
     @Index(name = "idx_order_number", columnList = "order_number"),
-    @Index(name = "idx_order_date", columnList = "order_date")
+    @Index(name = "idx_order_date", columnList = "order_date"),
+    @Index(name = "idx_order_user_date", columnList = "user_id, order_date, id")
 })
 @Getter
 @Setter
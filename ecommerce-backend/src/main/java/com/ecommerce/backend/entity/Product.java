@@ -1,5 +1,6 @@
 package com.ecommerce.backend.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
@@ -13,7 +14,9 @@ import java.math.BigDecimal;
 @Table(name = "products", indexes = {
     @Index(name = "idx_product_name", columnList = "name"),
     @Index(name = "idx_product_category", columnList = "category"),
-    @Index(name = "idx_product_active", columnList = "active")
+    @Index(name = "idx_product_active", columnList = "active"),
+    @Index(name = "idx_product_active_price", columnList = "active, price, id"),
+    @Index(name = "idx_product_active_created", columnList = "active, created_at, id")
 })
 @Data
 @NoArgsConstructor
@@ -71,4 +74,9 @@ public class Product extends BaseEntity {
 
     @Column(name = "active", nullable = false)
     private boolean active = true;
+
+    // Bumped whenever stock is set outright; stock allotted to a node before then is not added back
+    @JsonIgnore
+    @Column(name = "stock_epoch")
+    private Integer stockEpoch = 0;
 }
\ No newline at end of file
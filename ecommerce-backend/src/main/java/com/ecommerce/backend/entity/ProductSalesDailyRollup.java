@@ -0,0 +1,50 @@
+package com.ecommerce.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Units sold and revenue for one product on one order day, split over slots like
+ * {@link SalesDailyRollup}.
+ */
+@Entity
+@Table(name = "product_sales_daily_rollups",
+       uniqueConstraints = {
+           @UniqueConstraint(name = "uk_product_sales_daily_rollup", columnNames = {"sales_date", "product_id", "slot"})
+       },
+       indexes = {
+           @Index(name = "idx_product_sales_rollup_product", columnList = "product_id")
+       })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductSalesDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "slot", nullable = false)
+    private Integer slot;
+
+    // Name at the time of the bucket's first sale
+    @Column(name = "product_name", nullable = false, length = 200)
+    private String productName;
+
+    @Column(name = "quantity", nullable = false)
+    private Long quantity;
+
+    @Column(name = "revenue", nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue;
+}
@@ -0,0 +1,61 @@
+package com.ecommerce.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * One login session's chain of refresh tokens. Only the latest token ({@code current_jti}) may be
+ * exchanged; each exchange rewrites this row in place, so a session is one row however often it
+ * refreshes.
+ */
+@Entity
+@Table(name = "refresh_token_families",
+       indexes = {
+           @Index(name = "idx_refresh_family_expires", columnList = "expires_at")
+       })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshTokenFamily implements Persistable<String> {
+
+    @Id
+    @Column(name = "family_id", length = 36, nullable = false)
+    private String familyId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "current_jti", length = 36, nullable = false)
+    private String currentJti;
+
+    @Column(name = "previous_jti", length = 36)
+    private String previousJti;
+
+    @Column(name = "rotated_at")
+    private LocalDateTime rotatedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Rows are inserted once and then only changed through the repository's update queries
+    @Override
+    public String getId() {
+        return familyId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
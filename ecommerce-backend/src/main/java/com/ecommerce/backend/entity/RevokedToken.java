@@ -0,0 +1,45 @@
+package com.ecommerce.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * A token id (jti) that must no longer be accepted. Kept until the token would have expired anyway.
+ */
+@Entity
+@Table(name = "revoked_tokens",
+       indexes = {
+           @Index(name = "idx_revoked_token_expires", columnList = "expires_at"),
+           @Index(name = "idx_revoked_token_revoked", columnList = "revoked_at")
+       })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevokedToken implements Persistable<String> {
+
+    @Id
+    @Column(name = "jti", length = 36, nullable = false)
+    private String jti;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+
+    // Rows are only ever inserted, so save() can persist without a select first
+    @Override
+    public String getId() {
+        return jti;
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
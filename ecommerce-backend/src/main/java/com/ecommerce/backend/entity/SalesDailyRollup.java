@@ -0,0 +1,44 @@
+package com.ecommerce.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Order count and revenue for one order day and status. Each bucket is split over a few slots so
+ * that concurrent checkouts do not all queue on one row; readers sum the slots.
+ */
+@Entity
+@Table(name = "sales_daily_rollups",
+       uniqueConstraints = {
+           @UniqueConstraint(name = "uk_sales_daily_rollup", columnNames = {"sales_date", "status", "slot"})
+       })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalesDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private OrderStatus status;
+
+    @Column(name = "slot", nullable = false)
+    private Integer slot;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @Column(name = "revenue", nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue;
+}
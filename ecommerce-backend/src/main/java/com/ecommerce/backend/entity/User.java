@@ -84,6 +84,10 @@ public class User extends BaseEntity implements UserDetails {
     @Column(name = "last_login")
     private LocalDateTime lastLogin;
 
+    // Bumped to invalidate every token issued to this user
+    @Column(name = "security_version")
+    private Long securityVersion = 0L;
+
     // Relationships
     // One-to-One relationship with Cart
     @OneToOne(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
@@ -106,7 +110,8 @@ public class User extends BaseEntity implements UserDetails {
 
     @Override
     public boolean isAccountNonLocked() {
-        return accountNonLocked && (lockedUntil == null || lockedUntil.isBefore(LocalDateTime.now()));
+        // A timed lockout ends by itself; a lock without an end date stays until lifted
+        return accountNonLocked || (lockedUntil != null && lockedUntil.isBefore(LocalDateTime.now()));
     }
 
     @Override
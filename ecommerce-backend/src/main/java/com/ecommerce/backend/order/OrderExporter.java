@@ -0,0 +1,323 @@
+package com.ecommerce.backend.order;
+
+import com.ecommerce.backend.entity.OrderStatus;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams orders, optionally with their items, from a forward-only JDBC cursor to an output
+ * stream as CSV or NDJSON.
+ * <p>
+ * Rows are read {@code export.fetch-size} at a time and written as they arrive; no entity is
+ * loaded and no result list is built, so memory stays constant whatever the export size. A write
+ * blocks while a slow client drains its socket, and the cursor does not advance meanwhile, which
+ * is all the backpressure needed. The read-only transaction that keeps the cursor open ends with
+ * the last row. PostgreSQL only streams inside a transaction with a fetch size, as here; MySQL
+ * also needs {@code useCursorFetch=true} on the JDBC URL.
+ * <p>
+ * In NDJSON each order is one line with an {@code items} array, built from the consecutive item
+ * rows of that order. In CSV each item is one row, with its order's columns repeated.
+ */
+@Component
+@Slf4j
+public class OrderExporter {
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    public record Filter(OrderStatus status, LocalDate from, LocalDate to) {
+    }
+
+    private static final String ORDER_COLUMNS =
+            "o.id AS order_id, o.order_number, o.user_id, o.status, o.order_date, o.total_items, o.total_amount, " +
+            "o.payment_method, o.payment_status, o.tracking_number, o.shipped_date, o.delivered_date, " +
+            "o.shipping_city, o.shipping_state, o.shipping_postal_code, o.shipping_country";
+
+    private static final String ITEM_COLUMNS =
+            "oi.id AS item_id, oi.product_id, oi.product_name, oi.product_sku, oi.quantity, oi.unit_price, oi.sub_total";
+
+    // Result set labels of the columns above; also the CSV headers and JSON field names
+    private static final String[] ORDER_FIELDS = {
+            "order_id", "order_number", "user_id", "status", "order_date", "total_items", "total_amount",
+            "payment_method", "payment_status", "tracking_number", "shipped_date", "delivered_date",
+            "shipping_city", "shipping_state", "shipping_postal_code", "shipping_country"};
+
+    private static final String[] ITEM_FIELDS = {
+            "item_id", "product_id", "product_name", "product_sku", "quantity", "unit_price", "sub_total"};
+
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate exportTransaction;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public OrderExporter(DataSource dataSource, PlatformTransactionManager transactionManager,
+                         @Value("${export.fetch-size:1000}") int fetchSize) {
+        this.cursorTemplate = new JdbcTemplate(dataSource);
+        this.cursorTemplate.setFetchSize(fetchSize);
+        this.exportTransaction = new TransactionTemplate(transactionManager);
+        this.exportTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Writes every order matching the filter, oldest first, and returns how many were written.
+     * An {@link UncheckedIOException} means the client went away; the cursor is closed by then.
+     */
+    public long export(Filter filter, Format format, boolean includeItems, OutputStream out) {
+        List<Object> args = new ArrayList<>();
+        String sql = buildQuery(filter, includeItems, args);
+        long started = System.currentTimeMillis();
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        RowWriter rowWriter;
+        try {
+            rowWriter = format == Format.CSV
+                    ? new CsvRowWriter(writer, includeItems)
+                    : new NdjsonRowWriter(writer, createGenerator(writer), includeItems);
+            rowWriter.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        long orders = exportTransaction.execute(status -> {
+            cursorTemplate.query(sql, (RowCallbackHandler) rs -> {
+                try {
+                    rowWriter.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, args.toArray());
+            return rowWriter.orders();
+        });
+
+        try {
+            rowWriter.finish();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Exported {} orders as {} in {} ms", orders, format, System.currentTimeMillis() - started);
+        return orders;
+    }
+
+    private JsonGenerator createGenerator(Writer writer) throws IOException {
+        // The response stream is closed by the container, and flushed only when the writer fills up.
+        // Orders are separated by the newlines written here, not by the generator's default space
+        return jsonFactory.createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)
+                .setRootValueSeparator(null);
+    }
+
+    private static String buildQuery(Filter filter, boolean includeItems, List<Object> args) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(ORDER_COLUMNS);
+        if (includeItems) {
+            sql.append(", ").append(ITEM_COLUMNS).append(" FROM orders o LEFT JOIN order_items oi ON oi.order_id = o.id");
+        } else {
+            sql.append(" FROM orders o");
+        }
+        sql.append(" WHERE 1 = 1");
+        if (filter.status() != null) {
+            sql.append(" AND o.status = ?");
+            args.add(filter.status().name());
+        }
+        if (filter.from() != null) {
+            sql.append(" AND o.order_date >= ?");
+            args.add(Timestamp.valueOf(filter.from().atStartOfDay()));
+        }
+        if (filter.to() != null) {
+            sql.append(" AND o.order_date < ?");
+            args.add(Timestamp.valueOf(filter.to().plusDays(1).atStartOfDay()));
+        }
+        // The items of an order must arrive together to be grouped under it
+        sql.append(includeItems ? " ORDER BY o.id, oi.id" : " ORDER BY o.id");
+        return sql.toString();
+    }
+
+    private static String text(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        return value.toString();
+    }
+
+    private interface RowWriter {
+        void start() throws IOException;
+
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+
+        long orders();
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        private final boolean includeItems;
+        private long orders;
+        private long lastOrderId = -1;
+
+        private CsvRowWriter(Writer writer, boolean includeItems) {
+            this.writer = writer;
+            this.includeItems = includeItems;
+        }
+
+        @Override
+        public void start() throws IOException {
+            writer.write(String.join(",", ORDER_FIELDS));
+            if (includeItems) {
+                writer.write(',');
+                writer.write(String.join(",", ITEM_FIELDS));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            long orderId = rs.getLong("order_id");
+            if (orderId != lastOrderId) {
+                lastOrderId = orderId;
+                orders++;
+            }
+            writeFields(rs, ORDER_FIELDS);
+            if (includeItems) {
+                writer.write(',');
+                writeFields(rs, ITEM_FIELDS);
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        @Override
+        public long orders() {
+            return orders;
+        }
+
+        private void writeFields(ResultSet rs, String[] fields) throws SQLException, IOException {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = rs.getObject(fields[i]);
+                if (value != null) {
+                    writer.write(value instanceof String string ? escape(string) : text(value));
+                }
+            }
+        }
+
+        // RFC 4180 quoting. Text that a spreadsheet would take for a formula gets a leading quote,
+        // since names and addresses are customer input
+        private static String escape(String value) {
+            String safe = !value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+            if (safe.indexOf(',') < 0 && safe.indexOf('"') < 0 && safe.indexOf('\n') < 0 && safe.indexOf('\r') < 0) {
+                return safe;
+            }
+            return '"' + safe.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private static final class NdjsonRowWriter implements RowWriter {
+        private final Writer writer;
+        private final JsonGenerator json;
+        private final boolean includeItems;
+        private long orders;
+        private long openOrderId = -1;
+
+        private NdjsonRowWriter(Writer writer, JsonGenerator json, boolean includeItems) {
+            this.writer = writer;
+            this.json = json;
+            this.includeItems = includeItems;
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            long orderId = rs.getLong("order_id");
+            if (orderId != openOrderId) {
+                endOrder();
+                json.writeStartObject();
+                writeFields(rs, ORDER_FIELDS);
+                if (includeItems) {
+                    json.writeArrayFieldStart("items");
+                }
+                openOrderId = orderId;
+                orders++;
+            }
+            // An order without items comes back once, with null item columns
+            if (includeItems && rs.getObject("item_id") != null) {
+                json.writeStartObject();
+                writeFields(rs, ITEM_FIELDS);
+                json.writeEndObject();
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            endOrder();
+        }
+
+        @Override
+        public long orders() {
+            return orders;
+        }
+
+        private void endOrder() throws IOException {
+            if (openOrderId == -1) {
+                return;
+            }
+            if (includeItems) {
+                json.writeEndArray();
+            }
+            json.writeEndObject();
+            json.flush();
+            writer.write('\n');
+        }
+
+        private void writeFields(ResultSet rs, String[] fields) throws SQLException, IOException {
+            for (String field : fields) {
+                Object value = rs.getObject(field);
+                if (value == null) {
+                    json.writeNullField(field);
+                } else if (value instanceof BigDecimal decimal) {
+                    json.writeNumberField(field, decimal);
+                } else if (value instanceof Number number) {
+                    json.writeNumberField(field, number.longValue());
+                } else {
+                    json.writeStringField(field, text(value));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.ecommerce.backend.order;
+
+/**
+ * Produces the customer-facing order number stored in the unique {@code orders.order_number}
+ * column. The implementation is chosen with {@code order.number.generator}.
+ */
+public interface OrderNumberGenerator {
+
+    String PREFIX = "ORD-";
+
+    String nextOrderNumber();
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.backend.order;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * The original scheme: eight hex digits of a random UUID. Kept for deployments that depend on
+ * the old format; collisions become likely after tens of thousands of orders.
+ */
+@Component
+@ConditionalOnProperty(name = "order.number.generator", havingValue = "random")
+public class RandomOrderNumberGenerator implements OrderNumberGenerator {
+
+    @Override
+    public String nextOrderNumber() {
+        return PREFIX + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    }
+}
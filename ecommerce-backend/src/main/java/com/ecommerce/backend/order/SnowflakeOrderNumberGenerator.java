@@ -0,0 +1,81 @@
+package com.ecommerce.backend.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style order numbers: 41 bits of milliseconds since 2024-01-01, a 10-bit node id and a
+ * 12-bit per-millisecond sequence, written as 13 Crockford base32 characters.
+ * <p>
+ * Numbers are unique across nodes as long as every node has its own {@code order.number.node-id},
+ * which is therefore required: a value derived from the host could collide. They need no
+ * database round trip, and are strictly increasing per node, so inserts into the
+ * {@code order_number} index append at its right edge instead of landing on random pages. The
+ * fixed width keeps string order equal to numeric order.
+ * <p>
+ * The generator never waits on the clock: when the sequence of a millisecond is used up, or the
+ * clock steps backwards, it keeps counting from the last value handed out.
+ */
+@Component
+@ConditionalOnProperty(name = "order.number.generator", havingValue = "snowflake", matchIfMissing = true)
+@Slf4j
+public class SnowflakeOrderNumberGenerator implements OrderNumberGenerator {
+
+    static final long EPOCH_MS = 1704067200000L; // 2024-01-01T00:00:00Z
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int ENCODED_LENGTH = 13;
+
+    private final long nodeId;
+
+    // (timestamp << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong lastState = new AtomicLong();
+
+    public SnowflakeOrderNumberGenerator(@Value("${order.number.node-id:#{null}}") Long nodeId) {
+        if (nodeId == null) {
+            throw new IllegalStateException("order.number.node-id must be set to a value unique to this " +
+                    "instance, between 0 and " + MAX_NODE_ID + ", when order numbers are generated by snowflake");
+        }
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("order.number.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        log.info("Generating snowflake order numbers as node {}", nodeId);
+    }
+
+    @Override
+    public String nextOrderNumber() {
+        return PREFIX + encode(nextId());
+    }
+
+    long nextId() {
+        long state;
+        long next;
+        do {
+            state = lastState.get();
+            long now = System.currentTimeMillis() - EPOCH_MS;
+            // A later millisecond restarts the sequence; otherwise count on, carrying into the timestamp
+            next = now > (state >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : state + 1;
+        } while (!lastState.compareAndSet(state, next));
+
+        long timestamp = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    static String encode(long id) {
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,34 @@
+package com.ecommerce.backend.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+
+/**
+ * In-process buckets in a size-bounded Caffeine cache. A hit is a concurrent map read plus a
+ * lock-free CAS on the bucket state, so nothing is shared between requests for different keys.
+ * Buckets idle for longer than it takes them to refill completely are dropped; they would be
+ * full again anyway.
+ */
+public class LocalRateLimitBucketStore implements RateLimitBucketStore {
+
+    private final Cache<String, Bucket> buckets;
+
+    public LocalRateLimitBucketStore(long maxSize, Duration idleTimeout, MeterRegistry meterRegistry) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(idleTimeout)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rate-limit.buckets");
+    }
+
+    @Override
+    public Bucket bucket(String key, RateLimit limit) {
+        return buckets.get(key, k -> Bucket.builder().addLimit(limit.getBandwidth()).build());
+    }
+}
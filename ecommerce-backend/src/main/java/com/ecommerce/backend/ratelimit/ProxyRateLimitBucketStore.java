@@ -0,0 +1,20 @@
+package com.ecommerce.backend.ratelimit;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Buckets kept by a bucket4j {@link ProxyManager}, e.g. one of the JCache, Hazelcast or Redis
+ * integrations, so that every node draws from the same buckets.
+ */
+@RequiredArgsConstructor
+public class ProxyRateLimitBucketStore implements RateLimitBucketStore {
+
+    private final ProxyManager<String> proxyManager;
+
+    @Override
+    public Bucket bucket(String key, RateLimit limit) {
+        return proxyManager.builder().build(key, limit.getConfiguration());
+    }
+}
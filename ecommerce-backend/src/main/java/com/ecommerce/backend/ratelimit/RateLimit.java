@@ -0,0 +1,26 @@
+package com.ecommerce.backend.ratelimit;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.Refill;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * A named token-bucket limit: up to {@code capacity} requests in a burst, refilled by
+ * {@code refillTokens} every {@code refillPeriod}.
+ */
+@Getter
+public class RateLimit {
+
+    private final String name;
+    private final Bandwidth bandwidth;
+    private final BucketConfiguration configuration;
+
+    public RateLimit(String name, long capacity, long refillTokens, Duration refillPeriod) {
+        this.name = name;
+        this.bandwidth = Bandwidth.classic(capacity, Refill.greedy(refillTokens, refillPeriod));
+        this.configuration = BucketConfiguration.builder().addLimit(bandwidth).build();
+    }
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.backend.ratelimit;
+
+import io.github.bucket4j.Bucket;
+
+/**
+ * Where rate-limit buckets live. The default keeps them in process; a store backed by a bucket4j
+ * {@code ProxyManager} shares them between nodes.
+ */
+public interface RateLimitBucketStore {
+
+    /**
+     * Returns the bucket for the key, creating it with the given limit on first use.
+     */
+    Bucket bucket(String key, RateLimit limit);
+}
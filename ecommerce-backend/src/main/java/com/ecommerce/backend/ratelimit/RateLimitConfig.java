@@ -0,0 +1,54 @@
+package com.ecommerce.backend.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.caffeine.CaffeineProxyManager;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Picks the bucket store from {@code rate-limit.store}: {@code local} (default) keeps buckets in
+ * this JVM; {@code proxy} uses the application's {@code ProxyManager<String>} bean so limits are
+ * shared across nodes, falling back to bucket4j's in-process Caffeine proxy manager when there is
+ * none.
+ */
+@Configuration
+@Slf4j
+public class RateLimitConfig {
+
+    @Value("${rate-limit.max-buckets:100000}")
+    private long maxBuckets;
+
+    @Value("${rate-limit.idle-timeout:600000}")
+    private long idleTimeoutMs;
+
+    @Bean
+    @ConditionalOnProperty(name = "rate-limit.store", havingValue = "local", matchIfMissing = true)
+    public RateLimitBucketStore localRateLimitBucketStore(MeterRegistry meterRegistry) {
+        log.info("Rate limit buckets kept in process (max {}, idle timeout {} ms)", maxBuckets, idleTimeoutMs);
+        return new LocalRateLimitBucketStore(maxBuckets, Duration.ofMillis(idleTimeoutMs), meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "rate-limit.store", havingValue = "proxy")
+    public RateLimitBucketStore proxyRateLimitBucketStore(ObjectProvider<ProxyManager<String>> proxyManager) {
+        ProxyManager<String> manager = proxyManager.getIfAvailable(() -> {
+            log.warn("rate-limit.store is proxy but no ProxyManager bean is defined; limits are not shared between nodes");
+            return new CaffeineProxyManager<>(caffeineBuilder(), Duration.ofMillis(idleTimeoutMs));
+        });
+        return new ProxyRateLimitBucketStore(manager);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Caffeine<String, RemoteBucketState> caffeineBuilder() {
+        return (Caffeine<String, RemoteBucketState>) (Caffeine<?, ?>) Caffeine.newBuilder().maximumSize(maxBuckets);
+    }
+}
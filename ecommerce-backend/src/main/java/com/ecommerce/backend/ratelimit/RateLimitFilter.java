@@ -0,0 +1,169 @@
+package com.ecommerce.backend.ratelimit;
+
+import com.ecommerce.backend.security.JwtAuthenticationFilter;
+import com.ecommerce.backend.security.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.bucket4j.ConsumptionProbe;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket rate limiting, run ahead of {@link JwtAuthenticationFilter} so throttled requests
+ * are turned away before any further work.
+ * <p>
+ * {@code /auth/**} is limited per client IP with {@code rate-limit.auth}. Everything else is
+ * limited with {@code rate-limit.api}, per user when the request carries a valid token and per IP
+ * otherwise. The token is verified here (through the verified-token cache) rather than trusted,
+ * so nobody can drain another user's bucket; the claims are handed on to the JWT filter. The
+ * client IP is the remote address: behind a proxy, set {@code server.forward-headers-strategy}
+ * so that only the proxy's forwarded header is honoured.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitBucketStore bucketStore;
+    private final JwtUtil jwtUtil;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rate-limit.auth.capacity:5}")
+    private long authCapacity;
+
+    @Value("${rate-limit.auth.tokens:1}")
+    private long authTokens;
+
+    @Value("${rate-limit.auth.duration:60000}")
+    private long authDurationMs;
+
+    @Value("${rate-limit.api.capacity:100}")
+    private long apiCapacity;
+
+    @Value("${rate-limit.api.tokens:10}")
+    private long apiTokens;
+
+    @Value("${rate-limit.api.duration:60000}")
+    private long apiDurationMs;
+
+    private RateLimit authLimit;
+    private RateLimit apiLimit;
+    private Counter authRejected;
+    private Counter apiRejected;
+
+    @PostConstruct
+    void init() {
+        authLimit = new RateLimit("auth", authCapacity, authTokens, Duration.ofMillis(authDurationMs));
+        apiLimit = new RateLimit("api", apiCapacity, apiTokens, Duration.ofMillis(apiDurationMs));
+        authRejected = rejectedCounter(authLimit);
+        apiRejected = rejectedCounter(apiLimit);
+        log.info("Rate limiting enabled: {} (auth {} per IP, +{} every {} ms; api {} per user/IP, +{} every {} ms)",
+                enabled, authCapacity, authTokens, authDurationMs, apiCapacity, apiTokens, apiDurationMs);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        RateLimit limit;
+        String key;
+        if (path.startsWith("/auth/")) {
+            limit = authLimit;
+            key = "auth:ip:" + request.getRemoteAddr();
+        } else {
+            limit = apiLimit;
+            key = "api:" + clientKey(request);
+        }
+
+        ConsumptionProbe probe = bucketStore.bucket(key, limit).tryConsumeAndReturnRemaining(1);
+        if (probe.isConsumed()) {
+            response.setHeader("X-RateLimit-Remaining", Long.toString(probe.getRemainingTokens()));
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        (limit == authLimit ? authRejected : apiRejected).increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill()) + 1);
+        log.warn("Rate limit '{}' exceeded for {} on {}", limit.getName(), key, path);
+        writeTooManyRequests(request, response, retryAfterSeconds);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!enabled) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.startsWith("/actuator") ||
+               path.startsWith("/swagger-ui") ||
+               path.startsWith("/api-docs") ||
+               path.startsWith("/h2-console");
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        String header = request.getHeader("Authorization");
+        if (StringUtils.hasText(header) && header.startsWith("Bearer ")) {
+            try {
+                Claims claims = jwtUtil.parseClaims(header.substring(7));
+                request.setAttribute(JwtAuthenticationFilter.VERIFIED_CLAIMS_ATTRIBUTE, claims);
+                Object userId = claims.get(JwtUtil.CLAIM_USER_ID);
+                return "user:" + (userId != null ? userId : claims.getSubject());
+            } catch (JwtException | IllegalArgumentException e) {
+                // Invalid tokens are rejected by the JWT filter; count them against the IP
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private Counter rejectedCounter(RateLimit limit) {
+        return Counter.builder("rate-limit.rejected")
+                .description("Requests refused because their rate limit bucket was empty")
+                .tag("limit", limit.getName())
+                .register(meterRegistry);
+    }
+
+    private void writeTooManyRequests(HttpServletRequest request, HttpServletResponse response,
+                                      long retryAfterSeconds) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now().toString());
+        body.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        body.put("error", "Too Many Requests");
+        body.put("message", "Rate limit exceeded, retry in " + retryAfterSeconds + " seconds");
+        body.put("path", request.getRequestURI());
+
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
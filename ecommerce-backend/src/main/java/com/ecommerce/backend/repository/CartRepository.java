@@ -1,5 +1,6 @@
 package com.ecommerce.backend.repository;
 
+import com.ecommerce.backend.dto.CartSummaryDto;
 import com.ecommerce.backend.entity.Cart;
 import com.ecommerce.backend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -32,6 +34,14 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     @Query("SELECT c FROM Cart c LEFT JOIN FETCH c.cartItems ci LEFT JOIN FETCH ci.product WHERE c.user.id = :userId")
     Optional<Cart> findByUserIdWithItems(@Param("userId") Long userId);
 
+    @Query("SELECT new com.ecommerce.backend.dto.CartSummaryDto(c.totalItems, c.totalAmount) FROM Cart c WHERE c.user.id = :userId")
+    Optional<CartSummaryDto> findSummaryByUserId(@Param("userId") Long userId);
+
+    // Read model for GET /cart: only the columns CartDto needs, one row per item (or one empty row)
+    @Query("SELECT c.id, c.totalItems, c.totalAmount, ci.id, p.id, p.name, p.sku, ci.unitPrice, ci.quantity, ci.subTotal " +
+           "FROM Cart c LEFT JOIN c.cartItems ci LEFT JOIN ci.product p WHERE c.user.id = :userId ORDER BY ci.id")
+    List<Object[]> findCartViewRowsByUserId(@Param("userId") Long userId);
+
     @Query("SELECT COUNT(c) FROM Cart c WHERE c.totalItems > 0")
     long countNonEmptyCart();
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.ecommerce.backend.repository;
+
+import com.ecommerce.backend.entity.DistinctCountSketch;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DistinctCountSketchRepository extends JpaRepository<DistinctCountSketch, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM DistinctCountSketch s WHERE s.metric = :metric AND s.dimension = :dimension AND s.sketchDate = :date")
+    Optional<DistinctCountSketch> findForUpdate(@Param("metric") String metric, @Param("dimension") String dimension,
+                                                @Param("date") LocalDate date);
+
+    @Query("SELECT s FROM DistinctCountSketch s WHERE s.metric = :metric AND s.dimension = :dimension " +
+           "AND s.sketchDate BETWEEN :startDate AND :endDate")
+    List<DistinctCountSketch> findRange(@Param("metric") String metric, @Param("dimension") String dimension,
+                                        @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
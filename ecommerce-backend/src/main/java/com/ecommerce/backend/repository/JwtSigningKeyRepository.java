@@ -0,0 +1,22 @@
+package com.ecommerce.backend.repository;
+
+import com.ecommerce.backend.entity.JwtSigningKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKey, String> {
+
+    @Query("SELECT k FROM JwtSigningKey k WHERE k.verifyUntil > :now")
+    List<JwtSigningKey> findUnexpired(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM JwtSigningKey k WHERE k.verifyUntil <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -4,6 +4,7 @@ import com.ecommerce.backend.entity.Order;
 import com.ecommerce.backend.entity.OrderStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -88,11 +89,15 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("UPDATE Order o SET o.status = :status WHERE o.id = :orderId")
     int updateOrderStatus(@Param("orderId") Long orderId, @Param("status") OrderStatus status);
 
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :to WHERE o.id = :orderId AND o.status = :from")
+    int compareAndSetStatus(@Param("orderId") Long orderId, @Param("from") OrderStatus from, @Param("to") OrderStatus to);
+
     @Modifying
     @Query("UPDATE Order o SET o.trackingNumber = :trackingNumber, o.status = :status, o.shippedDate = :shippedDate WHERE o.id = :orderId")
     int updateShippingInfo(@Param("orderId") Long orderId, @Param("trackingNumber") String trackingNumber, @Param("status") OrderStatus status, @Param("shippedDate") LocalDateTime shippedDate);
 
-    // Analytics and reporting queries
+    // Analytics and reporting queries; these scan orders, the admin dashboard reads the sales rollups instead
     @Query("SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId")
     long countByUserId(@Param("userId") Long userId);
 
@@ -134,9 +139,17 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.status IN :statuses ORDER BY o.orderDate DESC")
     Page<Order> findByStatusIn(@Param("statuses") List<OrderStatus> statuses, Pageable pageable);
 
-    // Fetch orders with items for performance
-    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems WHERE o.user.id = :userId ORDER BY o.orderDate DESC")
-    List<Order> findByUserIdWithItems(@Param("userId") Long userId);
+    // Order history by keyset on (orderDate, id), newest first, served by idx_order_user_date.
+    // The row-value comparison lets PostgreSQL start the index range at the cursor.
+    // Items are not fetched here; they are loaded for the page's order ids in one query.
+    @Query("SELECT o FROM Order o WHERE o.user.id = :userId ORDER BY o.orderDate DESC, o.id DESC")
+    Slice<Order> findHistoryFirst(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT o FROM Order o WHERE o.user.id = :userId AND " +
+           "(o.orderDate, o.id) < (:orderDate, :id) " +
+           "ORDER BY o.orderDate DESC, o.id DESC")
+    Slice<Order> findHistoryAfter(@Param("userId") Long userId, @Param("orderDate") LocalDateTime orderDate,
+                                  @Param("id") Long id, Pageable pageable);
 
     @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems WHERE o.id = :orderId")
     Optional<Order> findByIdWithItems(@Param("orderId") Long orderId);
@@ -3,6 +3,7 @@ package com.ecommerce.backend.repository;
 import com.ecommerce.backend.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -10,6 +11,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -77,14 +80,29 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.name ILIKE :name AND p.active = true")
     Page<Product> findByNameContainingIgnoreCase(@Param("name") String name, Pageable pageable);
 
+    // Stock updates bump the version so that an admin edit loaded before them fails instead of overwriting them
     @Modifying
-    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity WHERE p.id = :productId AND p.stockQuantity >= :quantity")
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity, p.version = p.version + 1 " +
+           "WHERE p.id = :productId AND p.stockQuantity >= :quantity")
     int decreaseStock(@Param("productId") Long productId, @Param("quantity") Integer quantity);
 
     @Modifying
-    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity WHERE p.id = :productId")
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity, p.version = p.version + 1 WHERE p.id = :productId")
     int increaseStock(@Param("productId") Long productId, @Param("quantity") Integer quantity);
 
+    // Allotted units only go back if stock has not been set outright since they were taken
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity, p.version = p.version + 1 " +
+           "WHERE p.id = :productId AND COALESCE(p.stockEpoch, 0) = :stockEpoch")
+    int returnAllottedStock(@Param("productId") Long productId, @Param("quantity") Integer quantity,
+                            @Param("stockEpoch") Integer stockEpoch);
+
+    @Query("SELECT COALESCE(p.stockEpoch, 0) FROM Product p WHERE p.id = :productId")
+    Integer findStockEpoch(@Param("productId") Long productId);
+
+    @Query("SELECT p.id, COALESCE(p.stockEpoch, 0) FROM Product p WHERE p.id IN :productIds")
+    List<Object[]> findStockEpochs(@Param("productIds") Collection<Long> productIds);
+
     @Modifying
     @Query("UPDATE Product p SET p.active = :active WHERE p.id = :productId")
     int updateActiveStatus(@Param("productId") Long productId, @Param("active") Boolean active);
@@ -149,4 +167,34 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
             @Param("name") String name, @Param("category") String category, Pageable pageable);
     
     Page<Product> findByStockQuantityLessThanAndActiveTrue(int threshold, Pageable pageable);
+
+    // Keyset (seek) pagination: Slice results skip the COUNT query, and the row after the
+    // cursor is found through the (sort key, id) index instead of an OFFSET scan. The seek is a
+    // row-value comparison so that PostgreSQL starts the index range at the cursor; the equivalent
+    // OR of two conditions is only applied as a filter while it scans from the first row.
+    // The first page takes its order from the Pageable; the seek queries fix it in the query.
+    @Query("SELECT p FROM Product p WHERE p.active = true")
+    Slice<Product> findActiveSlice(Pageable pageable);
+
+    @Query("SELECT p FROM Product p WHERE p.active = true AND p.id > :id ORDER BY p.id ASC")
+    Slice<Product> findActiveAfterIdAsc(@Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT p FROM Product p WHERE p.active = true AND p.id < :id ORDER BY p.id DESC")
+    Slice<Product> findActiveAfterIdDesc(@Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT p FROM Product p WHERE p.active = true AND " +
+           "(p.price, p.id) > (:price, :id) ORDER BY p.price ASC, p.id ASC")
+    Slice<Product> findActiveAfterPriceAsc(@Param("price") BigDecimal price, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT p FROM Product p WHERE p.active = true AND " +
+           "(p.price, p.id) < (:price, :id) ORDER BY p.price DESC, p.id DESC")
+    Slice<Product> findActiveAfterPriceDesc(@Param("price") BigDecimal price, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT p FROM Product p WHERE p.active = true AND " +
+           "(p.createdAt, p.id) > (:createdAt, :id) ORDER BY p.createdAt ASC, p.id ASC")
+    Slice<Product> findActiveAfterCreatedAtAsc(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT p FROM Product p WHERE p.active = true AND " +
+           "(p.createdAt, p.id) < (:createdAt, :id) ORDER BY p.createdAt DESC, p.id DESC")
+    Slice<Product> findActiveAfterCreatedAtDesc(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.ecommerce.backend.repository;
+
+import com.ecommerce.backend.entity.ProductSalesDailyRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ProductSalesDailyRollupRepository extends JpaRepository<ProductSalesDailyRollup, Long> {
+
+    @Query("SELECT r.productId, MAX(r.productName), SUM(r.quantity), SUM(r.revenue) " +
+           "FROM ProductSalesDailyRollup r " +
+           "WHERE r.salesDate >= :since " +
+           "GROUP BY r.productId " +
+           "ORDER BY SUM(r.quantity) DESC")
+    List<Object[]> getTopSellingProducts(@Param("since") LocalDate since, Pageable pageable);
+
+    @Query("SELECT r.productId, MAX(r.productName), SUM(r.quantity), SUM(r.revenue) " +
+           "FROM ProductSalesDailyRollup r " +
+           "WHERE r.salesDate >= :since " +
+           "GROUP BY r.productId " +
+           "ORDER BY SUM(r.revenue) DESC")
+    List<Object[]> getTopRevenueProducts(@Param("since") LocalDate since, Pageable pageable);
+}
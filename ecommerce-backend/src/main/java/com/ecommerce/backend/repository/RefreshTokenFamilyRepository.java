@@ -0,0 +1,33 @@
+package com.ecommerce.backend.repository;
+
+import com.ecommerce.backend.entity.RefreshTokenFamily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface RefreshTokenFamilyRepository extends JpaRepository<RefreshTokenFamily, String> {
+
+    /**
+     * Compare-and-set on the family's latest token id. Returns 1 when {@code presented} was still
+     * the latest token of a live family, 0 otherwise.
+     */
+    @Modifying
+    @Query("UPDATE RefreshTokenFamily f SET f.previousJti = :presented, f.currentJti = :next, " +
+           "f.rotatedAt = :now, f.expiresAt = :expiresAt " +
+           "WHERE f.familyId = :familyId AND f.currentJti = :presented AND f.revokedAt IS NULL AND f.expiresAt > :now")
+    int rotate(@Param("familyId") String familyId, @Param("presented") String presented, @Param("next") String next,
+               @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE RefreshTokenFamily f SET f.revokedAt = :now WHERE f.familyId = :familyId AND f.revokedAt IS NULL")
+    int revoke(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RefreshTokenFamily f WHERE f.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
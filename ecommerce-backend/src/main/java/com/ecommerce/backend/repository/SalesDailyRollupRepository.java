@@ -0,0 +1,25 @@
+package com.ecommerce.backend.repository;
+
+import com.ecommerce.backend.entity.SalesDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SalesDailyRollupRepository extends JpaRepository<SalesDailyRollup, Long> {
+
+    @Query("SELECT r.salesDate, SUM(r.orderCount), SUM(r.revenue) FROM SalesDailyRollup r " +
+           "WHERE r.salesDate >= :since GROUP BY r.salesDate ORDER BY r.salesDate")
+    List<Object[]> getDailyTotals(@Param("since") LocalDate since);
+
+    @Query("SELECT COALESCE(SUM(r.revenue), 0) FROM SalesDailyRollup r WHERE r.salesDate BETWEEN :startDate AND :endDate")
+    BigDecimal sumRevenueByDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT r.status, SUM(r.orderCount) FROM SalesDailyRollup r GROUP BY r.status ORDER BY SUM(r.orderCount) DESC")
+    List<Object[]> getOrderCountByStatus();
+}
@@ -2,6 +2,7 @@ package com.ecommerce.backend.repository;
 
 import com.ecommerce.backend.enums.Role;
 import com.ecommerce.backend.entity.User;
+import com.ecommerce.backend.security.UserSecurityState;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -65,6 +66,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("UPDATE User u SET u.enabled = :enabled WHERE u.id = :userId")
     void updateUserStatus(@Param("userId") Long userId, @Param("enabled") Boolean enabled);
 
+    // Lightweight projection used by the per-request token check
+    @Query("SELECT new com.ecommerce.backend.security.UserSecurityState(" +
+           "u.id, COALESCE(u.securityVersion, 0), u.enabled, u.accountNonLocked, u.lockedUntil, " +
+           "u.accountNonExpired, u.credentialsNonExpired) FROM User u WHERE u.id = :userId")
+    Optional<UserSecurityState> findSecurityStateById(@Param("userId") Long userId);
+
     @Query("SELECT COUNT(u) FROM User u WHERE u.role = :role")
     long countByRole(@Param("role") Role role);
 
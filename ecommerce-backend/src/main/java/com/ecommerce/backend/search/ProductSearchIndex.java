@@ -0,0 +1,283 @@
+package com.ecommerce.backend.search;
+
+import com.ecommerce.backend.entity.Product;
+import com.ecommerce.backend.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over active products.
+ * <p>
+ * Name, brand, category, tags and description are tokenized and case-folded; each term keeps a
+ * posting list of product id to field-weighted frequency. Queries match every query token as a
+ * term prefix and rank hits by weight times inverse document frequency, with a bonus for exact
+ * term matches. The index is built once the application is ready and kept current by
+ * {@code ProductService}; until it is ready, callers fall back to SQL.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int BUILD_BATCH_SIZE = 500;
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float BRAND_WEIGHT = 2.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float TAGS_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+
+    private final ProductRepository productRepository;
+
+    @Value("${search.index.enabled:true}")
+    private boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, IndexedProduct> documents = new HashMap<>();
+    // Products written while the initial build runs; the build must not overwrite them
+    private final Set<Long> touchedDuringBuild = new HashSet<>();
+
+    private volatile boolean building;
+    private volatile boolean ready;
+
+    public boolean isAvailable() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        withWriteLock(() -> {
+            building = true;
+            ready = false;
+            postings.clear();
+            documents.clear();
+            touchedDuringBuild.clear();
+        });
+
+        try {
+            Pageable pageable = PageRequest.of(0, BUILD_BATCH_SIZE, Sort.by("id"));
+            Page<Product> batch;
+            do {
+                batch = productRepository.findByActiveTrue(pageable);
+                List<Product> products = batch.getContent();
+                withWriteLock(() -> products.stream()
+                        .filter(product -> !touchedDuringBuild.contains(product.getId()))
+                        .forEach(this::addDocument));
+                pageable = batch.nextPageable();
+            } while (batch.hasNext());
+
+            withWriteLock(() -> {
+                building = false;
+                touchedDuringBuild.clear();
+                ready = true;
+            });
+            log.info("Product search index built: {} products, {} terms in {} ms",
+                    documents.size(), postings.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            withWriteLock(() -> building = false);
+            log.error("Product search index build failed, searches will use SQL: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Adds or replaces the product; inactive products are removed.
+     */
+    public void index(Product product) {
+        if (!enabled) {
+            return;
+        }
+        withWriteLock(() -> {
+            markTouched(product.getId());
+            removeDocument(product.getId());
+            if (product.isActive()) {
+                addDocument(product);
+            }
+        });
+    }
+
+    public void remove(Long productId) {
+        if (!enabled) {
+            return;
+        }
+        withWriteLock(() -> {
+            markTouched(productId);
+            removeDocument(productId);
+        });
+    }
+
+    /**
+     * Returns a relevance-ordered page of product ids matching every token of the query,
+     * optionally restricted to a category (case-insensitive).
+     */
+    public SearchResult search(String query, String category, Pageable pageable) {
+        List<String> queryTokens = new ArrayList<>(new HashSet<>(tokenize(query)));
+        if (queryTokens.isEmpty()) {
+            return new SearchResult(Collections.emptyList(), 0);
+        }
+        String categoryFilter = category != null && !category.isBlank()
+                ? category.trim().toLowerCase(Locale.ROOT) : null;
+
+        List<Map.Entry<Long, Float>> ranked;
+        lock.readLock().lock();
+        try {
+            Map<Long, Float> scores = null;
+            for (String token : queryTokens) {
+                Map<Long, Float> tokenScores = scoreToken(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+            if (categoryFilter != null) {
+                scores.keySet().removeIf(id -> !categoryFilter.equals(documents.get(id).category()));
+            }
+            ranked = new ArrayList<>(scores.entrySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        ranked.sort(Map.Entry.<Long, Float>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+
+        int from = (int) Math.min(pageable.getOffset(), ranked.size());
+        int to = Math.min(from + pageable.getPageSize(), ranked.size());
+        List<Long> pageIds = ranked.subList(from, to).stream().map(Map.Entry::getKey).toList();
+        return new SearchResult(pageIds, ranked.size());
+    }
+
+    /**
+     * Loads the products for a result page in one query and keeps the relevance order.
+     */
+    public Page<Product> toPage(SearchResult result, Pageable pageable) {
+        if (result.productIds().isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, result.totalHits());
+        }
+        Map<Long, Product> byId = new HashMap<>();
+        productRepository.findAllById(result.productIds()).forEach(product -> byId.put(product.getId(), product));
+        List<Product> content = result.productIds().stream()
+                .map(byId::get)
+                .filter(product -> product != null && product.isActive())
+                .toList();
+        return new PageImpl<>(content, pageable, result.totalHits());
+    }
+
+    private Map<Long, Float> scoreToken(String token) {
+        Map<Long, Float> scores = new HashMap<>();
+        int documentCount = Math.max(1, documents.size());
+        for (Map.Entry<String, Map<Long, Float>> term : postings.subMap(token, true, token + Character.MAX_VALUE, true).entrySet()) {
+            Map<Long, Float> postingList = term.getValue();
+            float idf = (float) Math.log(1.0 + (double) documentCount / postingList.size());
+            float matchFactor = term.getKey().equals(token) ? 1.0f : PREFIX_MATCH_FACTOR;
+            postingList.forEach((id, weight) -> scores.merge(id, weight * idf * matchFactor, Math::max));
+        }
+        return scores;
+    }
+
+    private void addDocument(Product product) {
+        Map<String, Float> termWeights = new HashMap<>();
+        addField(termWeights, product.getName(), NAME_WEIGHT);
+        addField(termWeights, product.getBrand(), BRAND_WEIGHT);
+        addField(termWeights, product.getCategory(), CATEGORY_WEIGHT);
+        addField(termWeights, product.getTags(), TAGS_WEIGHT);
+        addField(termWeights, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        termWeights.forEach((term, weight) ->
+                postings.computeIfAbsent(term, key -> new HashMap<>()).put(product.getId(), weight));
+        String category = product.getCategory() != null ? product.getCategory().toLowerCase(Locale.ROOT) : null;
+        documents.put(product.getId(), new IndexedProduct(category, termWeights.keySet()));
+    }
+
+    private void removeDocument(Long productId) {
+        IndexedProduct existing = documents.remove(productId);
+        if (existing == null) {
+            return;
+        }
+        for (String term : existing.terms()) {
+            Map<Long, Float> postingList = postings.get(term);
+            if (postingList != null) {
+                postingList.remove(productId);
+                if (postingList.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private void markTouched(Long productId) {
+        if (building) {
+            touchedDuringBuild.add(productId);
+        }
+    }
+
+    private void addField(Map<String, Float> termWeights, String text, float fieldWeight) {
+        for (String token : tokenize(text)) {
+            termWeights.merge(token, fieldWeight, Float::sum);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private record IndexedProduct(String category, Set<String> terms) {
+    }
+
+    public record SearchResult(List<Long> productIds, long totalHits) {
+    }
+}
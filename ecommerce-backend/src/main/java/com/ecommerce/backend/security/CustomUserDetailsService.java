@@ -5,6 +5,7 @@ import com.ecommerce.backend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -13,7 +14,7 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -34,6 +35,22 @@ public class CustomUserDetailsService implements UserDetailsService {
         return user;
     }
 
+    /**
+     * Stores a password re-hashed with the current settings after a successful login.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = (User) userDetails;
+        userRepository.findById(user.getId()).ifPresent(stored -> {
+            stored.setPassword(newPassword);
+            userRepository.save(stored);
+        });
+        user.setPassword(newPassword);
+        log.info("Re-hashed password for user: {}", user.getUsername());
+        return user;
+    }
+
     @Transactional(readOnly = true)
     public User loadUserEntityByUsername(String username) throws UsernameNotFoundException {
         log.debug("Loading user entity by username: {}", username);
@@ -1,11 +1,15 @@
 package com.ecommerce.backend.security;
 
+import com.ecommerce.backend.entity.User;
+import com.ecommerce.backend.enums.Role;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -23,8 +27,16 @@ import java.io.IOException;
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    /** Claims already verified earlier in the chain (by the rate limiter), reused instead of re-verifying */
+    public static final String VERIFIED_CLAIMS_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".claims";
+
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final UserSecurityStateService userSecurityStateService;
+    private final TokenRevocationService tokenRevocationService;
+
+    @Value("${jwt.claims-auth.enabled:true}")
+    private boolean claimsAuthEnabled;
 
     @Override
     protected void doFilterInternal(
@@ -34,11 +46,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtil.validateToken(jwt)) {
-                String username = jwtUtil.extractUsername(jwt);
+            if (jwt != null) {
+                // Single signature/expiry verification for the whole request
+                Claims claims = request.getAttribute(VERIFIED_CLAIMS_ATTRIBUTE) instanceof Claims verified
+                        ? verified
+                        : jwtUtil.parseClaims(jwt);
+                String username = claims.getSubject();
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (jwtUtil.validateToken(jwt, userDetails)) {
+                UserDetails userDetails = null;
+                if (jwtUtil.isRefreshToken(claims)) {
+                    // Only exchangeable at the refresh endpoint, never a credential for anything else
+                    log.warn("Rejected refresh token presented as an access token for user {}", username);
+                } else if (tokenRevocationService.isRevoked(claims.getId())) {
+                    log.warn("Rejected revoked token for user {}", username);
+                } else {
+                    userDetails = resolvePrincipal(claims);
+                }
+                if (userDetails != null) {
                     UsernamePasswordAuthenticationToken authentication =
                             new UsernamePasswordAuthenticationToken(
                                     userDetails, null, userDetails.getAuthorities());
@@ -62,6 +86,35 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Builds the principal from the token claims when they carry user id, role and security version,
+     * checking revocation against the in-memory user state. Older tokens fall back to a user lookup
+     * and the same state check; having no security version, they are only accepted while it is 0.
+     */
+    private UserDetails resolvePrincipal(Claims claims) {
+        if (claimsAuthEnabled && jwtUtil.hasPrincipalClaims(claims)) {
+            Long userId = ((Number) claims.get(JwtUtil.CLAIM_USER_ID)).longValue();
+            long tokenVersion = ((Number) claims.get(JwtUtil.CLAIM_SECURITY_VERSION)).longValue();
+
+            if (!userSecurityStateService.isTokenAccepted(userId, tokenVersion)) {
+                log.warn("Rejected token for user id {}: account disabled, locked or token revoked", userId);
+                return null;
+            }
+            Role role = Role.valueOf((String) claims.get(JwtUtil.CLAIM_ROLE));
+            return new JwtUserPrincipal(userId, claims.getSubject(), role);
+        }
+
+        UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        if (!claims.getSubject().equals(userDetails.getUsername())) {
+            return null;
+        }
+        if (!(userDetails instanceof User user) || !userSecurityStateService.isTokenAccepted(user.getId(), 0L)) {
+            log.warn("Rejected token for user {}: account disabled, locked or token revoked", claims.getSubject());
+            return null;
+        }
+        return userDetails;
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
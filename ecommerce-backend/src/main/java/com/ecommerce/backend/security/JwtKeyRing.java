@@ -0,0 +1,220 @@
+package com.ecommerce.backend.security;
+
+import com.ecommerce.backend.entity.JwtSigningKey;
+import com.ecommerce.backend.repository.JwtSigningKeyRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ES256 signing keys for JWTs, identified by the {@code kid} header.
+ * <p>
+ * Each node generates its own key pairs and keeps the private keys in memory only; nothing that
+ * can sign ever leaves the node. Public keys go into {@code jwt_signing_keys}, from which every
+ * node loads them as parsed {@link PublicKey} objects, so verification is a map lookup by kid.
+ * The same keys are served as a JWKS for services that verify tokens themselves.
+ * <p>
+ * The node holds a current key, which signs, and a next key, which is already published. Every
+ * {@code rotation-interval} the next key takes over and a new next key is generated, so a key has
+ * been in the JWKS for a full interval before any token carries it. Keys stay verifiable until the
+ * last token they could have signed has expired. A kid this node has not seen yet (another node
+ * rotated since the last sync) triggers an early reload, at most once per {@code min-reload-interval}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JwtKeyRing {
+
+    public static final String ALGORITHM = "ES256";
+    private static final String CURVE = "secp256r1";
+    private static final int COORDINATE_BYTES = 32;
+
+    private final JwtSigningKeyRepository signingKeyRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, VerificationKey> verificationKeys = new ConcurrentHashMap<>();
+    private final AtomicLong lastReload = new AtomicLong();
+    private volatile SigningKey current;
+    private volatile SigningKey next;
+
+    @Value("${jwt.keys.rotation-interval:86400000}")
+    private long rotationIntervalMs;
+
+    @Value("${jwt.keys.min-reload-interval:1000}")
+    private long minReloadIntervalMs;
+
+    @Value("${jwt.refresh-expiration}")
+    private long refreshExpirationMs;
+
+    public record SigningKey(String kid, PrivateKey privateKey) {
+    }
+
+    private record VerificationKey(ECPublicKey publicKey, LocalDateTime verifyUntil) {
+    }
+
+    @PostConstruct
+    void init() {
+        reload();
+        current = generate();
+        next = generate();
+
+        Gauge.builder("jwt.keys.verification", verificationKeys, ConcurrentMap::size)
+                .description("Public keys tokens are currently verified against")
+                .register(meterRegistry);
+        log.info("Signing JWTs with key {}, {} verification keys loaded", current.kid(), verificationKeys.size());
+    }
+
+    public SigningKey signingKey() {
+        return current;
+    }
+
+    /**
+     * Public key for the kid, or {@code null} if no live key has that id.
+     */
+    public PublicKey verificationKey(String kid) {
+        VerificationKey key = verificationKeys.get(kid);
+        if (key == null && reloadAllowed()) {
+            reload();
+            key = verificationKeys.get(kid);
+        }
+        return key != null ? key.publicKey() : null;
+    }
+
+    /**
+     * All live public keys as JWKs (RFC 7517).
+     */
+    public List<Map<String, Object>> publicJwks() {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        verificationKeys.forEach((kid, key) -> keys.add(toJwk(kid, key.publicKey())));
+        return keys;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.keys.rotation-interval:86400000}",
+               initialDelayString = "${jwt.keys.rotation-interval:86400000}")
+    public void rotate() {
+        SigningKey promoted = next;
+        next = generate();
+        current = promoted;
+        log.info("Rotated JWT signing key, now signing with {}", promoted.kid());
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.keys.sync-interval:60000}")
+    @Transactional(readOnly = true)
+    public void syncFromDatabase() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.keys.purge-interval:3600000}",
+               initialDelayString = "${jwt.keys.purge-interval:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = signingKeyRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Purged {} expired JWT signing keys", deleted);
+        }
+    }
+
+    private void reload() {
+        LocalDateTime now = LocalDateTime.now();
+        lastReload.set(System.nanoTime());
+        for (JwtSigningKey row : signingKeyRepository.findUnexpired(now)) {
+            verificationKeys.computeIfAbsent(row.getKid(), kid -> decode(row));
+        }
+        verificationKeys.values().removeIf(key -> !key.verifyUntil().isAfter(now));
+    }
+
+    private boolean reloadAllowed() {
+        long now = System.nanoTime();
+        long last = lastReload.get();
+        return now - last >= minReloadIntervalMs * 1_000_000L && lastReload.compareAndSet(last, now);
+    }
+
+    private SigningKey generate() {
+        KeyPair pair;
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec(CURVE));
+            pair = generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("EC key generation is not available", e);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        // Published one interval ahead, signs for one interval, then its tokens run out
+        LocalDateTime verifyUntil = now.plus(2 * rotationIntervalMs + refreshExpirationMs, ChronoUnit.MILLIS);
+        String kid = UUID.randomUUID().toString();
+        signingKeyRepository.save(JwtSigningKey.builder()
+                .kid(kid)
+                .algorithm(ALGORITHM)
+                .publicKey(Base64.getEncoder().encodeToString(pair.getPublic().getEncoded()))
+                .createdAt(now)
+                .verifyUntil(verifyUntil)
+                .build());
+        verificationKeys.put(kid, new VerificationKey((ECPublicKey) pair.getPublic(), verifyUntil));
+        return new SigningKey(kid, pair.getPrivate());
+    }
+
+    private VerificationKey decode(JwtSigningKey row) {
+        if (!ALGORITHM.equals(row.getAlgorithm())) {
+            log.warn("Ignoring JWT signing key {} with unsupported algorithm {}", row.getKid(), row.getAlgorithm());
+            return null;
+        }
+        try {
+            PublicKey key = KeyFactory.getInstance("EC")
+                    .generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(row.getPublicKey())));
+            return new VerificationKey((ECPublicKey) key, row.getVerifyUntil());
+        } catch (GeneralSecurityException | IllegalArgumentException | ClassCastException e) {
+            log.warn("Ignoring unreadable JWT signing key {}: {}", row.getKid(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static Map<String, Object> toJwk(String kid, ECPublicKey key) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("use", "sig");
+        jwk.put("alg", ALGORITHM);
+        jwk.put("kid", kid);
+        jwk.put("x", coordinate(key.getW().getAffineX()));
+        jwk.put("y", coordinate(key.getW().getAffineY()));
+        return jwk;
+    }
+
+    // Unsigned, big-endian and left-padded to the field size, as RFC 7518 requires
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] fixed = new byte[COORDINATE_BYTES];
+        int length = Math.min(bytes.length, COORDINATE_BYTES);
+        System.arraycopy(bytes, bytes.length - length, fixed, COORDINATE_BYTES - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+}
@@ -1,7 +1,10 @@
 package com.ecommerce.backend.security;
 
+import com.ecommerce.backend.entity.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
@@ -9,26 +12,90 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_SECURITY_VERSION = "ver";
+    public static final String CLAIM_FAMILY = "fam";
+
+    // Secrets this repository once shipped as defaults; anyone with the source can sign with them
+    private static final Set<String> PUBLISHED_SECRETS = Set.of(
+            "myVerySecureJwtSecretKeyForHS512AlgorithmThatMeetsTheMinimum512BitsRequirementAndIsLongEnoughForSecurityPurposes2024",
+            "MyVerySecureJWTSecretKey123456789012345678901234567890");
+
+    // Only verifies HS512 tokens issued before the key ring, while jwt.keys.accept-legacy-hmac is on
+    @Value("${jwt.secret:}")
     private String jwtSecret;
 
+    // Meant for the rollout of the key ring only: turn it off once the last HS512 refresh token has
+    // expired, one refresh lifetime (7 days) later
+    @Value("${jwt.keys.accept-legacy-hmac:false}")
+    private boolean acceptLegacyHmac;
+
     @Value("${jwt.expiration}")
     private int jwtExpirationMs;
 
     @Value("${jwt.refresh-expiration}")
     private int refreshExpirationMs;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final JwtKeyRing keyRing;
+
+    // Built once; both are immutable and thread-safe
+    private SecretKey legacyHmacKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        if (acceptLegacyHmac) {
+            if (jwtSecret.isBlank() || PUBLISHED_SECRETS.contains(jwtSecret)) {
+                throw new IllegalStateException("jwt.keys.accept-legacy-hmac needs jwt.secret set to the secret " +
+                        "this deployment signed its HS512 tokens with; the defaults once shipped here are public");
+            }
+            legacyHmacKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+            log.warn("Accepting HS512 tokens signed with jwt.secret; turn jwt.keys.accept-legacy-hmac off " +
+                    "once the key ring has been in use for a full refresh token lifetime");
+        }
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    // jjwt 0.11 declares this method with a raw JwsHeader, so the override has to match it
+                    @Override
+                    @SuppressWarnings("rawtypes")
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return resolveVerificationKey(header);
+                    }
+                })
+                .build();
+    }
+
+    private Key resolveVerificationKey(JwsHeader<?> header) {
+        String kid = header.getKeyId();
+        if (kid == null) {
+            if (legacyHmacKey != null && SignatureAlgorithm.HS512.getValue().equals(header.getAlgorithm())) {
+                return legacyHmacKey;
+            }
+            throw new UnsupportedJwtException("Token has no key id");
+        }
+        if (!JwtKeyRing.ALGORITHM.equals(header.getAlgorithm())) {
+            throw new UnsupportedJwtException("Unexpected signing algorithm " + header.getAlgorithm());
+        }
+        Key key = keyRing.verificationKey(kid);
+        if (key == null) {
+            throw new UnsupportedJwtException("Unknown signing key " + kid);
+        }
+        return key;
     }
 
     public String extractUsername(String token) {
@@ -44,19 +111,32 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
+    /**
+     * Verifies signature and expiry once and returns the claims.
+     */
+    public Claims parseClaims(String token) {
+        return extractAllClaims(token);
+    }
+
+    public boolean hasPrincipalClaims(Claims claims) {
+        return claims.get(CLAIM_USER_ID) != null
+                && claims.get(CLAIM_ROLE) != null
+                && claims.get(CLAIM_SECURITY_VERSION) != null;
+    }
+
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return verifiedTokenCache.get(token, this::verify);
         } catch (JwtException e) {
             log.error("Invalid JWT token: {}", e.getMessage());
             throw e;
         }
     }
 
+    private Claims verify(String token) {
+        return jwtParser.parseClaimsJws(token).getBody();
+    }
+
     public Boolean isTokenExpired(String token) {
         try {
             return extractExpiration(token).before(new Date());
@@ -66,7 +146,23 @@ public class JwtUtil {
     }
 
     public String generateToken(UserDetails userDetails) {
+        return generateToken(userDetails, null);
+    }
+
+    /**
+     * Access token tied to a refresh-token family, so that logging out can end the whole session.
+     */
+    public String generateToken(UserDetails userDetails, String familyId) {
         Map<String, Object> claims = new HashMap<>();
+        if (familyId != null) {
+            claims.put(CLAIM_FAMILY, familyId);
+        }
+        if (userDetails instanceof User) {
+            User user = (User) userDetails;
+            claims.put(CLAIM_USER_ID, user.getId());
+            claims.put(CLAIM_ROLE, user.getRole().name());
+            claims.put(CLAIM_SECURITY_VERSION, user.getSecurityVersion() != null ? user.getSecurityVersion() : 0L);
+        }
         return createToken(claims, userDetails.getUsername(), jwtExpirationMs);
     }
 
@@ -76,20 +172,37 @@ public class JwtUtil {
         return createToken(claims, userDetails.getUsername(), refreshExpirationMs);
     }
 
+    /**
+     * Refresh token with a caller-chosen id, recorded as the latest token of its family.
+     */
+    public String generateRefreshToken(UserDetails userDetails, String familyId, String jti) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("type", "refresh");
+        claims.put(CLAIM_FAMILY, familyId);
+        return createToken(claims, userDetails.getUsername(), jti, refreshExpirationMs);
+    }
+
     public String generateTokenFromUsername(String username) {
         return createToken(new HashMap<>(), username, jwtExpirationMs);
     }
 
     private String createToken(Map<String, Object> claims, String subject, int expiration) {
+        return createToken(claims, subject, UUID.randomUUID().toString(), expiration);
+    }
+
+    private String createToken(Map<String, Object> claims, String subject, String jti, int expiration) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
+        JwtKeyRing.SigningKey signingKey = keyRing.signingKey();
 
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
                 .setClaims(claims)
                 .setSubject(subject)
+                .setId(jti)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey.privateKey(), SignatureAlgorithm.ES256)
                 .compact();
     }
 
@@ -105,10 +218,7 @@ public class JwtUtil {
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
+            verifiedTokenCache.get(token, this::verify);
             return true;
         } catch (SecurityException e) {
             log.error("Invalid JWT signature: {}", e.getMessage());
@@ -133,13 +243,16 @@ public class JwtUtil {
 
     public boolean isRefreshToken(String token) {
         try {
-            Claims claims = extractAllClaims(token);
-            return "refresh".equals(claims.get("type"));
+            return isRefreshToken(extractAllClaims(token));
         } catch (JwtException e) {
             return false;
         }
     }
 
+    public boolean isRefreshToken(Claims claims) {
+        return "refresh".equals(claims.get("type"));
+    }
+
     public long getExpirationTime() {
         return jwtExpirationMs;
     }
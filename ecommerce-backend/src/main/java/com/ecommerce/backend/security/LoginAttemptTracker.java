@@ -0,0 +1,190 @@
+package com.ecommerce.backend.security;
+
+import com.ecommerce.backend.entity.User;
+import com.ecommerce.backend.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Failed-attempt counters, lockouts and last-login times kept in memory and written back in batches.
+ * <p>
+ * Logins used to rewrite the whole users row on every success and failure. Here each outcome is a
+ * {@code compute} on a concurrent map, which locks only the entry's bin, and the lockout decision is
+ * made from that state. Every {@code flush-interval} the changed entries are written in one
+ * transaction with the targeted {@code UserRepository} updates. A change can be lost if the node
+ * dies before its flush; with several nodes each counts attempts on its own, and the rate limiter
+ * bounds attempts per IP on top.
+ */
+@Component
+@Slf4j
+public class LoginAttemptTracker {
+
+    // How long an entry is kept after it was written back. Logins that read the users row before
+    // the write committed must still find the entry rather than seed a count from the stale row.
+    private static final long RETENTION_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final UserRepository userRepository;
+    private final UserSecurityStateService userSecurityStateService;
+    private final TransactionTemplate flushTransaction;
+    private final ConcurrentMap<Long, AttemptState> states = new ConcurrentHashMap<>();
+
+    @Value("${security.login-attempts.max-failures:5}")
+    private int maxFailures;
+
+    @Value("${security.login-attempts.lock-duration:1800000}")
+    private long lockDurationMs;
+
+    public LoginAttemptTracker(UserRepository userRepository, UserSecurityStateService userSecurityStateService,
+                               PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.userSecurityStateService = userSecurityStateService;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Whether the account is locked, going by pending in-memory state before the loaded row.
+     */
+    public boolean isLocked(User user) {
+        AttemptState state = states.get(user.getId());
+        return state != null ? state.isLocked(LocalDateTime.now()) : !user.isAccountNonLocked();
+    }
+
+    public void onSuccess(User user) {
+        LocalDateTime now = LocalDateTime.now();
+        states.compute(user.getId(), (id, current) -> {
+            boolean wasLocked = current != null ? current.lockedUntil() != null : !user.isAccountNonLocked();
+            return new AttemptState(0, null, now, wasLocked || (current != null && current.lockChanged()), true,
+                    System.nanoTime());
+        });
+    }
+
+    /**
+     * Counts a failed password check and returns the resulting number of consecutive failures.
+     */
+    public int onFailure(User user) {
+        LocalDateTime now = LocalDateTime.now();
+        AttemptState updated = states.compute(user.getId(), (id, current) -> {
+            AttemptState base = current != null ? current.expireLock(now) : AttemptState.from(user, now);
+            int failures = base.failures() + 1;
+            if (failures >= maxFailures && !base.isLocked(now)) {
+                log.warn("Locking user {} for {} ms after {} failed logins", user.getUsername(), lockDurationMs, failures);
+                return new AttemptState(failures, now.plus(Duration.ofMillis(lockDurationMs)), base.lastLogin(), true, true,
+                        System.nanoTime());
+            }
+            return new AttemptState(failures, base.lockedUntil(), base.lastLogin(), base.lockChanged(), true,
+                    System.nanoTime());
+        });
+        return updated.failures();
+    }
+
+    @Scheduled(fixedDelayString = "${security.login-attempts.flush-interval:1000}")
+    public void flush() {
+        dropIdleEntries();
+        List<Long> dirtyIds = states.entrySet().stream()
+                .filter(entry -> entry.getValue().dirty())
+                .map(ConcurrentMap.Entry::getKey)
+                .toList();
+        if (dirtyIds.isEmpty()) {
+            return;
+        }
+
+        List<PendingWrite> writes = new ArrayList<>(dirtyIds.size());
+        dirtyIds.forEach(id -> states.computeIfPresent(id, (key, state) -> {
+            writes.add(new PendingWrite(key, state));
+            return state.clean();
+        }));
+
+        try {
+            flushTransaction.executeWithoutResult(status -> writes.forEach(this::write));
+        } catch (RuntimeException e) {
+            log.error("Failed to write {} login attempt updates, will retry: {}", writes.size(), e.getMessage());
+            writes.forEach(write -> states.computeIfPresent(write.userId(), (key, state) -> state.merge(write.state())));
+            return;
+        }
+        log.debug("Wrote {} login attempt updates", writes.size());
+    }
+
+    /**
+     * Forgets entries that are written back, not locked and idle for a while; from then on the
+     * users row is the source of truth again.
+     */
+    private void dropIdleEntries() {
+        LocalDateTime now = LocalDateTime.now();
+        long nowNanos = System.nanoTime();
+        states.keySet().forEach(id -> states.computeIfPresent(id, (key, state) ->
+                !state.dirty() && !state.isLocked(now) && nowNanos - state.touchedAt() > RETENTION_NANOS ? null : state));
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private void write(PendingWrite write) {
+        AttemptState state = write.state();
+        userRepository.updateFailedLoginAttempts(write.userId(), state.failures());
+        if (state.lastLogin() != null) {
+            userRepository.updateLastLogin(write.userId(), state.lastLogin());
+        }
+        if (state.lockChanged()) {
+            userRepository.updateAccountLockStatus(write.userId(), state.lockedUntil() == null, state.lockedUntil());
+            userSecurityStateService.evictAfterCommit(write.userId());
+        }
+    }
+
+    private record PendingWrite(Long userId, AttemptState state) {
+    }
+
+    /**
+     * Immutable per-user state; {@code dirty} marks changes not yet written, {@code lockChanged}
+     * whether the lock columns are among them.
+     */
+    private record AttemptState(int failures, LocalDateTime lockedUntil, LocalDateTime lastLogin,
+                                boolean lockChanged, boolean dirty, long touchedAt) {
+
+        static AttemptState from(User user, LocalDateTime now) {
+            boolean timedLockExpired = user.getLockedUntil() != null && !user.getLockedUntil().isAfter(now);
+            int failures = user.getFailedLoginAttempts() != null && !timedLockExpired ? user.getFailedLoginAttempts() : 0;
+            LocalDateTime lockedUntil = timedLockExpired ? null : user.getLockedUntil();
+            return new AttemptState(failures, lockedUntil, null, timedLockExpired, false, System.nanoTime());
+        }
+
+        boolean isLocked(LocalDateTime now) {
+            return lockedUntil != null && lockedUntil.isAfter(now);
+        }
+
+        /**
+         * A timed lock that has run out starts the count again.
+         */
+        AttemptState expireLock(LocalDateTime now) {
+            return lockedUntil != null && !isLocked(now)
+                    ? new AttemptState(0, null, lastLogin, true, dirty, touchedAt)
+                    : this;
+        }
+
+        AttemptState clean() {
+            return new AttemptState(failures, lockedUntil, null, false, false, touchedAt);
+        }
+
+        /**
+         * Puts back the parts of a failed write that a newer change has not already superseded.
+         */
+        AttemptState merge(AttemptState unwritten) {
+            return new AttemptState(failures, lockedUntil, lastLogin != null ? lastLogin : unwritten.lastLogin(),
+                    lockChanged || unwritten.lockChanged(), true, touchedAt);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.ecommerce.backend.security;
+
+import com.ecommerce.backend.entity.RefreshTokenFamily;
+import com.ecommerce.backend.entity.User;
+import com.ecommerce.backend.exception.CustomExceptions.InvalidTokenException;
+import com.ecommerce.backend.repository.RefreshTokenFamilyRepository;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Refresh-token rotation with reuse detection.
+ * <p>
+ * Each login starts a family, one {@code refresh_token_families} row that records the id of the
+ * family's latest refresh token. Exchanging a token is a single conditional update on that row,
+ * looked up by primary key: it succeeds only if the presented token is still the latest, and
+ * replaces it with the new one. Nothing is scanned and no row is added per rotation.
+ * <p>
+ * Presenting an older token means it was copied, so the whole family is revoked and its holder
+ * has to log in again. The one exception is the token rotated away in the last {@code reuse-grace}
+ * ms, which is what a client sees when it races itself (two tabs refreshing at once). That request
+ * is refused but the family is left alone.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenService {
+
+    private final RefreshTokenFamilyRepository familyRepository;
+    private final TokenRevocationService tokenRevocationService;
+    private final JwtUtil jwtUtil;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${jwt.refresh-rotation.reuse-grace:10000}")
+    private long reuseGraceMs;
+
+    private Counter rotated;
+    private Counter reuseDetected;
+
+    @PostConstruct
+    void init() {
+        rotated = Counter.builder("jwt.refresh.rotated")
+                .description("Refresh tokens exchanged for a new one")
+                .register(meterRegistry);
+        reuseDetected = Counter.builder("jwt.refresh.reuse-detected")
+                .description("Superseded refresh tokens presented again; their family was revoked")
+                .register(meterRegistry);
+    }
+
+    public record IssuedRefreshToken(String familyId, String token) {
+    }
+
+    /**
+     * Starts a new family for a fresh login.
+     */
+    @Transactional
+    public IssuedRefreshToken issue(User user) {
+        LocalDateTime now = LocalDateTime.now();
+        String familyId = UUID.randomUUID().toString();
+        String jti = UUID.randomUUID().toString();
+        familyRepository.save(RefreshTokenFamily.builder()
+                .familyId(familyId)
+                .userId(user.getId())
+                .currentJti(jti)
+                .expiresAt(expiresAt(now))
+                .createdAt(now)
+                .build());
+        return new IssuedRefreshToken(familyId, jwtUtil.generateRefreshToken(user, familyId, jti));
+    }
+
+    /**
+     * Exchanges a verified refresh token for the next one in its family.
+     *
+     * @throws InvalidTokenException if the token is not the family's latest; the revocation that
+     *                               reuse triggers is committed all the same
+     */
+    @Transactional(noRollbackFor = InvalidTokenException.class)
+    public IssuedRefreshToken rotate(Claims presented, User user) {
+        String familyId = presented.get(JwtUtil.CLAIM_FAMILY, String.class);
+        String jti = presented.getId();
+        if (familyId == null) {
+            return migrate(presented, user);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        String nextJti = UUID.randomUUID().toString();
+        if (familyRepository.rotate(familyId, jti, nextJti, now, expiresAt(now)) == 1) {
+            rotated.increment();
+            return new IssuedRefreshToken(familyId, jwtUtil.generateRefreshToken(user, familyId, nextJti));
+        }
+
+        RefreshTokenFamily family = familyRepository.findById(familyId).orElse(null);
+        if (family == null || family.getRevokedAt() != null || !family.getExpiresAt().isAfter(now)) {
+            throw new InvalidTokenException("Refresh token session has ended");
+        }
+        if (jti.equals(family.getPreviousJti())
+                && family.getRotatedAt().isAfter(now.minus(reuseGraceMs, ChronoUnit.MILLIS))) {
+            log.info("Concurrent refresh for family {} of user {}", familyId, user.getUsername());
+            throw new InvalidTokenException("Refresh token was already exchanged by a concurrent request");
+        }
+
+        familyRepository.revoke(familyId, now);
+        reuseDetected.increment();
+        log.warn("Refresh token reuse for family {} of user {}, family revoked", familyId, user.getUsername());
+        throw new InvalidTokenException("Refresh token has already been used");
+    }
+
+    /**
+     * Ends the session a token belongs to; its refresh tokens are refused from then on.
+     */
+    @Transactional
+    public void revokeFamily(String familyId) {
+        if (familyRepository.revoke(familyId, LocalDateTime.now()) == 1) {
+            log.debug("Revoked refresh token family {}", familyId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh-rotation.purge-interval:3600000}",
+               initialDelayString = "${jwt.refresh-rotation.purge-interval:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = familyRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Purged {} expired refresh token families", deleted);
+        }
+    }
+
+    // Refresh tokens issued before families existed are good for one exchange: the token id is
+    // revoked and the session moves into a new family. The oldest ones carry no id, so nothing
+    // would stop them being exchanged again and again; their holders have to log in again.
+    private IssuedRefreshToken migrate(Claims presented, User user) {
+        if (presented.getId() == null) {
+            log.info("Refused a refresh token without a token id for user {}", user.getUsername());
+            throw new InvalidTokenException("Refresh token is no longer accepted, please log in again");
+        }
+        if (tokenRevocationService.isRevoked(presented.getId())) {
+            throw new InvalidTokenException("Refresh token has already been used");
+        }
+        tokenRevocationService.revoke(presented.getId(), presented.getExpiration());
+        return issue(user);
+    }
+
+    private LocalDateTime expiresAt(LocalDateTime now) {
+        return now.plus(jwtUtil.getRefreshExpirationTime(), ChronoUnit.MILLIS);
+    }
+}
@@ -0,0 +1,135 @@
+package com.ecommerce.backend.security;
+
+import com.ecommerce.backend.entity.RevokedToken;
+import com.ecommerce.backend.repository.RevokedTokenRepository;
+import com.ecommerce.backend.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Revoked token ids (jti), held until the token would have expired.
+ * <p>
+ * The {@code revoked_tokens} table is the durable copy and is loaded at startup. In memory, a Bloom
+ * filter sits in front of an exact map: a token that is not revoked, which is nearly every token,
+ * is cleared by the filter alone, with no map or database lookup. Only the filter's rare false
+ * positives and genuinely revoked tokens reach the map.
+ * <p>
+ * Other nodes' revocations are picked up every {@code sync-interval}. Expired rows are purged every
+ * {@code purge-interval}, and since a Bloom filter cannot forget, the filter is then rebuilt from
+ * what is left.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationService {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, LocalDateTime> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    private volatile LocalDateTime lastSync;
+    private Counter falsePositives;
+
+    @Value("${jwt.revocation.expected-revocations:100000}")
+    private long expectedRevocations;
+
+    @Value("${jwt.revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    @Value("${jwt.revocation.sync-interval:5000}")
+    private long syncIntervalMs;
+
+    @PostConstruct
+    void init() {
+        LocalDateTime now = LocalDateTime.now();
+        revokedTokenRepository.findUnexpired(now).forEach(token -> revoked.put(token.getJti(), token.getExpiresAt()));
+        lastSync = now;
+        rebuildFilter();
+
+        falsePositives = Counter.builder("jwt.revocation.false-positives")
+                .description("Tokens the Bloom filter could not clear that turned out not to be revoked")
+                .register(meterRegistry);
+        Gauge.builder("jwt.revocation.revoked", revoked, ConcurrentMap::size)
+                .description("Revoked tokens that have not expired yet")
+                .register(meterRegistry);
+        log.info("Loaded {} revoked tokens", revoked.size());
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        if (revoked.containsKey(jti)) {
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Revokes the token from now until its expiry. Takes effect on this node at once and on the
+     * others within {@code sync-interval}.
+     */
+    @Transactional
+    public void revoke(String jti, Date expiration) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(expiration.toInstant(), ZoneId.systemDefault());
+        if (!expiresAt.isAfter(now) || revoked.containsKey(jti)) {
+            return;
+        }
+        if (!revokedTokenRepository.existsById(jti)) {
+            revokedTokenRepository.save(new RevokedToken(jti, expiresAt, now));
+        }
+        remember(jti, expiresAt);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval:5000}")
+    @Transactional(readOnly = true)
+    public void syncFromDatabase() {
+        LocalDateTime now = LocalDateTime.now();
+        // Overlap the previous window so rows committed late by another node are not missed
+        LocalDateTime since = lastSync.minusNanos(syncIntervalMs * 2_000_000L + 10_000_000_000L);
+        revokedTokenRepository.findRevokedSince(since, now).forEach(token -> remember(token.getJti(), token.getExpiresAt()));
+        lastSync = now;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:600000}",
+               initialDelayString = "${jwt.revocation.purge-interval:600000}")
+    @Transactional
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = revokedTokenRepository.deleteExpired(now);
+        revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        rebuildFilter();
+        log.info("Purged {} expired revoked tokens, {} still revoked", deleted, revoked.size());
+    }
+
+    private void remember(String jti, LocalDateTime expiresAt) {
+        // Map first, then filter: once the filter says "maybe", the map already has the answer
+        revoked.put(jti, expiresAt);
+        filter.put(jti);
+    }
+
+    private void rebuildFilter() {
+        BloomFilter rebuilt = BloomFilter.create(Math.max(expectedRevocations, 2L * revoked.size()), falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+        // Tokens revoked while the filter was being built may have gone into the old one only
+        revoked.keySet().forEach(rebuilt::put);
+    }
+}
@@ -0,0 +1,35 @@
+package com.ecommerce.backend.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Snapshot of the account fields that decide whether a user's tokens are still honoured.
+ */
+@Getter
+@AllArgsConstructor
+public class UserSecurityState {
+
+    private final Long userId;
+    private final Long securityVersion;
+    private final boolean enabled;
+    private final boolean accountNonLocked;
+    private final LocalDateTime lockedUntil;
+    private final boolean accountNonExpired;
+    private final boolean credentialsNonExpired;
+
+    // Mirrors User#isAccountNonLocked
+    public boolean isLocked() {
+        return !(accountNonLocked || (lockedUntil != null && lockedUntil.isBefore(LocalDateTime.now())));
+    }
+
+    public boolean accepts(long tokenVersion) {
+        return enabled
+                && accountNonExpired
+                && credentialsNonExpired
+                && !isLocked()
+                && securityVersion == tokenVersion;
+    }
+}
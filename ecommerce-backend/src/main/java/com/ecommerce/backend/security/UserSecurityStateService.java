@@ -0,0 +1,65 @@
+package com.ecommerce.backend.security;
+
+import com.ecommerce.backend.repository.UserRepository;
+import com.ecommerce.backend.util.TransactionUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * In-memory view of per-user token state (security version, enabled, locked).
+ * Entries are loaded with a single-row projection on first use and expire after a short TTL,
+ * so status changes made on other nodes are picked up without a lookup per request.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserSecurityStateService {
+
+    private final UserRepository userRepository;
+
+    @Value("${jwt.claims-auth.state-cache-ttl:30000}")
+    private long stateCacheTtlMs;
+
+    @Value("${jwt.claims-auth.state-cache-size:100000}")
+    private long stateCacheSize;
+
+    private Cache<Long, UserSecurityState> states;
+
+    @PostConstruct
+    void init() {
+        states = Caffeine.newBuilder()
+                .maximumSize(stateCacheSize)
+                .expireAfterWrite(Duration.ofMillis(stateCacheTtlMs))
+                .build();
+    }
+
+    public boolean isTokenAccepted(Long userId, long tokenVersion) {
+        UserSecurityState state = states.get(userId,
+                id -> userRepository.findSecurityStateById(id).orElse(null));
+        if (state == null) {
+            log.warn("Token presented for unknown user id: {}", userId);
+            return false;
+        }
+        return state.accepts(tokenVersion);
+    }
+
+    public void evict(Long userId) {
+        states.invalidate(userId);
+    }
+
+    /**
+     * Evicts once the surrounding transaction commits, so a concurrent request
+     * cannot reload the pre-commit state into the cache.
+     */
+    public void evictAfterCommit(Long userId) {
+        states.invalidate(userId);
+        TransactionUtils.afterCommit(() -> states.invalidate(userId));
+    }
+}
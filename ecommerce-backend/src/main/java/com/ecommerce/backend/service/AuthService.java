@@ -1,5 +1,6 @@
 package com.ecommerce.backend.service;
 
+import com.ecommerce.backend.analytics.DistinctCountTracker;
 import com.ecommerce.backend.dto.AuthLoginRequest;
 import com.ecommerce.backend.dto.AuthResponse;
 import com.ecommerce.backend.exception.CustomExceptions.*;
@@ -7,6 +8,12 @@ import com.ecommerce.backend.entity.User;
 import com.ecommerce.backend.repository.UserRepository;
 import com.ecommerce.backend.security.CustomUserDetailsService;
 import com.ecommerce.backend.security.JwtUtil;
+import com.ecommerce.backend.security.LoginAttemptTracker;
+import com.ecommerce.backend.security.RefreshTokenService;
+import com.ecommerce.backend.security.RefreshTokenService.IssuedRefreshToken;
+import com.ecommerce.backend.security.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -30,18 +37,27 @@ public class AuthService {
     private final UserRepository userRepository;
     private final CustomUserDetailsService userDetailsService;
     private final JwtUtil jwtUtil;
-
-    @Transactional
+    private final LoginAttemptTracker loginAttemptTracker;
+    private final TokenRevocationService tokenRevocationService;
+    private final RefreshTokenService refreshTokenService;
+    private final DistinctCountTracker distinctCountTracker;
+
+    /**
+     * Not transactional, and /auth/** runs without open session in view (see JpaConfig), so that no
+     * database connection is held while the password hash is checked. The reads and each state
+     * change commit on their own: the refresh token family when issued, a re-hashed password on
+     * upgrade, and failed attempts with the tracker's next batch.
+     */
     public AuthResponse login(AuthLoginRequest request) {
         log.info("Login attempt for user: {}", request.getUsernameOrEmail());
 
-        try {
-            // Find user first to check account status
-            User user = userRepository.findByUsernameOrEmail(request.getUsernameOrEmail(), request.getUsernameOrEmail())
-                    .orElseThrow(() -> new UnauthorizedException("Invalid credentials"));
+        // Find user first to check account status
+        User user = userRepository.findByUsernameOrEmail(request.getUsernameOrEmail(), request.getUsernameOrEmail())
+                .orElseThrow(() -> new UnauthorizedException("Invalid credentials"));
 
-            // Check if account is locked
-            if (!user.isAccountNonLocked()) {
+        try {
+            // Check if account is locked; failed attempts are counted in memory and may not be in the row yet
+            if (loginAttemptTracker.isLocked(user)) {
                 log.warn("Login attempt for locked account: {}", user.getUsername());
                 throw new AccountLockedException("Account is temporarily locked due to failed login attempts");
             }
@@ -62,19 +78,19 @@ public class AuthService {
 
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
 
-            // Reset failed attempts on successful authentication
-            user.resetFailedLoginAttempts();
-            userRepository.save(user);
+            // Reset failed attempts and record the login; written back in the next batch
+            loginAttemptTracker.onSuccess(user);
+            distinctCountTracker.recordActiveUser(user.getId());
 
-            // Generate tokens
-            String accessToken = jwtUtil.generateToken(userDetails);
-            String refreshToken = jwtUtil.generateRefreshToken(userDetails);
+            // Generate tokens; the refresh token starts a new rotation family
+            IssuedRefreshToken refreshToken = refreshTokenService.issue(user);
+            String accessToken = jwtUtil.generateToken(userDetails, refreshToken.familyId());
 
             log.info("Successful login for user: {}", user.getUsername());
 
             return AuthResponse.builder()
                     .accessToken(accessToken)
-                    .refreshToken(refreshToken)
+                    .refreshToken(refreshToken.token())
                     .tokenType("Bearer")
                     .expiresIn(jwtUtil.getExpirationTime())
                     .userId(user.getId())
@@ -87,8 +103,8 @@ public class AuthService {
 
         } catch (BadCredentialsException e) {
             // Handle failed authentication
-            handleFailedLogin(request.getUsernameOrEmail());
-            log.warn("Failed login attempt for user: {}", request.getUsernameOrEmail());
+            int failures = loginAttemptTracker.onFailure(user);
+            log.warn("Failed login attempt #{} for user: {}", failures, user.getUsername());
             throw new UnauthorizedException("Invalid credentials");
         } catch (LockedException e) {
             log.warn("Login attempt for locked account: {}", request.getUsernameOrEmail());
@@ -113,20 +129,24 @@ public class AuthService {
                 throw new InvalidTokenException("Token is not a refresh token");
             }
 
-            String username = jwtUtil.extractUsername(refreshToken);
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-            // Generate new access token
-            String newAccessToken = jwtUtil.generateToken(userDetails);
-            String newRefreshToken = jwtUtil.generateRefreshToken(userDetails);
+            Claims claims = jwtUtil.parseClaims(refreshToken);
+            if (tokenRevocationService.isRevoked(claims.getId())) {
+                throw new InvalidTokenException("Refresh token has been revoked");
+            }
 
+            UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
             User user = (User) userDetails;
 
+            // Only the latest token of a family can be exchanged; reuse of an older one revokes the family
+            IssuedRefreshToken newRefreshToken = refreshTokenService.rotate(claims, user);
+            String newAccessToken = jwtUtil.generateToken(userDetails, newRefreshToken.familyId());
+            distinctCountTracker.recordActiveUser(user.getId());
+
             log.info("Token refreshed for user: {}", user.getUsername());
 
             return AuthResponse.builder()
                     .accessToken(newAccessToken)
-                    .refreshToken(newRefreshToken)
+                    .refreshToken(newRefreshToken.token())
                     .tokenType("Bearer")
                     .expiresIn(jwtUtil.getExpirationTime())
                     .userId(user.getId())
@@ -137,6 +157,9 @@ public class AuthService {
                     .loginTime(LocalDateTime.now())
                     .build();
 
+        } catch (InvalidTokenException e) {
+            log.warn("Token refresh refused: {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("Token refresh failed: {}", e.getMessage());
             throw new InvalidTokenException("Failed to refresh token");
@@ -144,26 +167,21 @@ public class AuthService {
     }
 
     @Transactional
-    private void handleFailedLogin(String usernameOrEmail) {
-        userRepository.findByUsernameOrEmail(usernameOrEmail, usernameOrEmail)
-                .ifPresent(user -> {
-                    user.incrementFailedLoginAttempts();
-                    userRepository.save(user);
-                    
-                    log.warn("Failed login attempt #{} for user: {}", 
-                            user.getFailedLoginAttempts(), user.getUsername());
-                });
-    }
-
     public void logout(String token) {
-        // In a production system, you'd maintain a blacklist of tokens
-        // For now, we'll just log the logout
         try {
-            if (jwtUtil.validateToken(token)) {
-                String username = jwtUtil.extractUsername(token);
-                log.info("User logged out: {}", username);
+            Claims claims = jwtUtil.parseClaims(token);
+            if (claims.getId() != null) {
+                // Rejected from now on until it expires
+                tokenRevocationService.revoke(claims.getId(), claims.getExpiration());
+                String familyId = claims.get(JwtUtil.CLAIM_FAMILY, String.class);
+                if (familyId != null) {
+                    refreshTokenService.revokeFamily(familyId);
+                }
+                log.info("User logged out: {}", claims.getSubject());
+            } else {
+                log.info("User logged out: {} (token predates token ids and stays valid until expiry)", claims.getSubject());
             }
-        } catch (Exception e) {
+        } catch (JwtException | IllegalArgumentException e) {
             log.debug("Logout with invalid token attempted");
         }
     }
@@ -1,5 +1,11 @@
 package com.ecommerce.backend.service;
 
+import com.ecommerce.backend.cache.CartSummaryCache;
+import com.ecommerce.backend.cache.ProductCache;
+import com.ecommerce.backend.dto.CartDto;
+import com.ecommerce.backend.dto.CartItemDto;
+import com.ecommerce.backend.dto.CartItemOperation;
+import com.ecommerce.backend.dto.CartSummaryDto;
 import com.ecommerce.backend.entity.Cart;
 import com.ecommerce.backend.entity.CartItem;
 import com.ecommerce.backend.entity.Product;
@@ -9,13 +15,27 @@ import com.ecommerce.backend.repository.CartRepository;
 import com.ecommerce.backend.repository.CartItemRepository;
 import com.ecommerce.backend.repository.ProductRepository;
 import com.ecommerce.backend.repository.UserRepository;
+import com.ecommerce.backend.util.Money;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -23,10 +43,18 @@ import java.util.Optional;
 @Transactional
 public class CartService {
 
+    protected static final String INSERT_ITEM_SQL =
+            "INSERT INTO cart_items (cart_id, product_id, quantity, unit_price, sub_total, created_at, updated_at, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final ProductCache productCache;
+    private final CartSummaryCache cartSummaryCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
 
     /**
      * Get or create cart for user
@@ -40,8 +68,10 @@ public class CartService {
                     Cart newCart = Cart.builder()
                             .user(user)
                             .totalAmount(BigDecimal.ZERO)
+                            .totalAmountMinor(0L)
                             .totalItems(0)
                             .build();
+                    cartSummaryCache.putAfterCommit(userId, newCart);
                     return cartRepository.save(newCart);
                 });
     }
@@ -55,6 +85,45 @@ public class CartService {
                 .orElseThrow(() -> new CartNotFoundException("Cart not found for user: " + userId));
     }
 
+    /**
+     * Cart as returned by GET /cart, read with a single scalar query: no entities are
+     * materialised, so nothing is tracked or dirty-checked.
+     */
+    public CartDto getCartView(Long userId) {
+        List<Object[]> rows = cartRepository.findCartViewRowsByUserId(userId);
+        if (rows.isEmpty()) {
+            Cart cart = getOrCreateCart(userId);
+            return CartDto.builder()
+                    .id(cart.getId())
+                    .items(List.of())
+                    .totalItems(0)
+                    .totalAmount(cart.getTotalAmount())
+                    .build();
+        }
+
+        List<CartItemDto> items = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            if (row[3] != null) {
+                items.add(CartItemDto.builder()
+                        .id((Long) row[3])
+                        .productId((Long) row[4])
+                        .productName((String) row[5])
+                        .productSku((String) row[6])
+                        .unitPrice((BigDecimal) row[7])
+                        .quantity((Integer) row[8])
+                        .subTotal((BigDecimal) row[9])
+                        .build());
+            }
+        }
+        Object[] first = rows.get(0);
+        return CartDto.builder()
+                .id((Long) first[0])
+                .items(items)
+                .totalItems(first[1] != null ? (Integer) first[1] : 0)
+                .totalAmount(first[2] != null ? (BigDecimal) first[2] : BigDecimal.ZERO)
+                .build();
+    }
+
     /**
      * Add item to cart
      */
@@ -88,8 +157,10 @@ public class CartService {
                 throw new InsufficientStockException("Insufficient stock. Available: " + product.getStockQuantity());
             }
             
+            int previousQuantity = item.getQuantity();
             item.updateQuantity(newQuantity);
             cartItemRepository.save(item);
+            cart.onItemQuantityChanged(item, previousQuantity);
         } else {
             // Add new item to cart
             CartItem newItem = CartItem.builder()
@@ -103,7 +174,7 @@ public class CartService {
             cartItemRepository.save(newItem);
         }
 
-        cart.updateTotals();
+        cartSummaryCache.putAfterCommit(userId, cart);
         return cartRepository.save(cart);
     }
 
@@ -129,10 +200,12 @@ public class CartService {
             throw new InsufficientStockException("Insufficient stock. Available: " + cartItem.getProduct().getStockQuantity());
         }
 
+        int previousQuantity = cartItem.getQuantity();
         cartItem.updateQuantity(quantity);
         cartItemRepository.save(cartItem);
+        cart.onItemQuantityChanged(cartItem, previousQuantity);
 
-        cart.updateTotals();
+        cartSummaryCache.putAfterCommit(userId, cart);
         return cartRepository.save(cart);
     }
 
@@ -152,7 +225,7 @@ public class CartService {
         cart.removeCartItem(cartItem);
         cartItemRepository.delete(cartItem);
 
-        cart.updateTotals();
+        cartSummaryCache.putAfterCommit(userId, cart);
         return cartRepository.save(cart);
     }
 
@@ -168,19 +241,26 @@ public class CartService {
 
         cartItemRepository.deleteByCartId(cart.getId());
         cart.clearCart();
-        cart.updateTotals();
 
+        cartSummaryCache.putAfterCommit(userId, cart);
         return cartRepository.save(cart);
     }
 
+    /**
+     * Item count and total for the cart badge, served from {@link CartSummaryCache}. Runs outside
+     * a transaction so that a cache hit does not take a connection from the pool.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public CartSummaryDto getCartSummary(Long userId) {
+        return cartSummaryCache.get(userId);
+    }
+
     /**
      * Get cart item count for user
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Integer getCartItemCount(Long userId) {
-        return cartRepository.findByUserId(userId)
-                .map(Cart::getTotalItems)
-                .orElse(0);
+        return getCartSummary(userId).getTotalItems();
     }
 
     /**
@@ -194,28 +274,142 @@ public class CartService {
     /**
      * Get cart total amount
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public BigDecimal getCartTotal(Long userId) {
-        return cartRepository.findByUserId(userId)
-                .map(Cart::getTotalAmount)
-                .orElse(BigDecimal.ZERO);
+        return getCartSummary(userId).getTotalAmount();
+    }
+
+    /**
+     * Apply several item edits in one go. The cart and its items are read with one query, the
+     * products with one IN query, and the writes are batched, so the number of statements does
+     * not grow with the number of edits. Either every operation applies or none does.
+     */
+    public Cart applyCartOperations(Long userId, List<CartItemOperation> operations) {
+        Cart cart = cartRepository.findByUserIdWithItems(userId)
+                .orElseGet(() -> getOrCreateCart(userId));
+
+        Map<Long, CartItem> itemsByProduct = cart.getCartItems().stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), Function.identity()));
+        ResolvedOperations resolved = resolveOperations(
+                itemsByProduct.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().getQuantity())),
+                operations);
+
+        List<Object[]> inserts = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        resolved.quantities().forEach((productId, quantity) -> {
+            CartItem item = itemsByProduct.get(productId);
+            if (quantity == 0) {
+                if (item != null) {
+                    cart.removeCartItem(item);
+                }
+            } else if (item != null) {
+                if (!item.getQuantity().equals(quantity)) {
+                    int previousQuantity = item.getQuantity();
+                    item.updateQuantity(quantity);
+                    cart.onItemQuantityChanged(item, previousQuantity);
+                }
+            } else {
+                BigDecimal unitPrice = resolved.products().get(productId).getPrice();
+                BigDecimal subTotal = unitPrice.multiply(BigDecimal.valueOf(quantity));
+                inserts.add(new Object[]{cart.getId(), productId, quantity, unitPrice, subTotal, now, now});
+                cart.adjustTotals(quantity, Money.toMinor(subTotal));
+            }
+        });
+
+        // Identity ids keep Hibernate from batching inserts, so new items go through JDBC
+        // and the cart is read back once to pick them up
+        Cart result = cart;
+        if (!inserts.isEmpty()) {
+            entityManager.flush();
+            jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, inserts);
+            entityManager.detach(cart);
+            result = cartRepository.findByUserIdWithItems(userId)
+                    .orElseThrow(() -> new CartNotFoundException("Cart not found for user: " + userId));
+        }
+        log.debug("Applied {} cart operations for user {}", operations.size(), userId);
+        cartSummaryCache.putAfterCommit(userId, result);
+        return cartRepository.save(result);
     }
 
     /**
-     * Merge guest cart with user cart (for future use)
+     * Replays the operations on the current quantities and checks the outcome against the
+     * products, fetched together through the product cache.
+     *
+     * @param current product id to quantity currently in the cart
+     */
+    protected ResolvedOperations resolveOperations(Map<Long, Integer> current, List<CartItemOperation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new BadRequestException("No cart operations given");
+        }
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        Set<Long> needProduct = new LinkedHashSet<>();
+        for (CartItemOperation operation : operations) {
+            Long productId = operation.getProductId();
+            int quantity = current.getOrDefault(productId, 0);
+            quantity = quantities.getOrDefault(productId, quantity);
+            if (operation.getOp() != CartItemOperation.Type.REMOVE
+                    && (operation.getQuantity() == null || operation.getQuantity() <= 0)) {
+                throw new BadRequestException("Quantity must be greater than 0 for " + operation.getOp() + " of product " + productId);
+            }
+            switch (operation.getOp()) {
+                case ADD -> quantity += operation.getQuantity();
+                case SET -> quantity = operation.getQuantity();
+                case REMOVE -> quantity = 0;
+            }
+            quantities.put(productId, quantity);
+        }
+
+        quantities.forEach((productId, quantity) -> {
+            if (quantity > 0 && !quantity.equals(current.get(productId))) {
+                needProduct.add(productId);
+            }
+        });
+        Map<Long, Product> products = productCache.getAllById(needProduct);
+        for (Long productId : needProduct) {
+            Product product = products.get(productId);
+            if (product == null) {
+                throw new ProductNotFoundException("Product not found with id: " + productId);
+            }
+            if (product.getStockQuantity() < quantities.get(productId)) {
+                throw new InsufficientStockException(product.getName(), quantities.get(productId), product.getStockQuantity());
+            }
+        }
+        return new ResolvedOperations(quantities, products);
+    }
+
+    /**
+     * @param quantities product id to resulting quantity for every product touched, 0 meaning removed
+     * @param products   the products whose quantity changed to a non-zero value
+     */
+    protected record ResolvedOperations(Map<Long, Integer> quantities, Map<Long, Product> products) {
+    }
+
+    /**
+     * Merge guest cart with user cart
      */
     public Cart mergeGuestCart(Long userId, Cart guestCart) {
         if (guestCart == null || guestCart.isEmpty()) {
             return getOrCreateCart(userId);
         }
 
-        Cart userCart = getOrCreateCart(userId);
+        List<CartItemOperation> operations = guestCart.getCartItems().stream()
+                .map(item -> new CartItemOperation(CartItemOperation.Type.ADD, item.getProduct().getId(), item.getQuantity()))
+                .toList();
+        return applyCartOperations(userId, operations);
+    }
 
-        for (CartItem guestItem : guestCart.getCartItems()) {
-            addItemToCart(userId, guestItem.getProduct().getId(), guestItem.getQuantity());
-        }
+    /**
+     * Makes sure the database holds the user's current cart before checkout reads it.
+     * Nothing to do here: every change is written through.
+     */
+    public void prepareForCheckout(Long userId) {
+    }
 
-        return getCartByUserId(userId);
+    /**
+     * Called by checkout after it has emptied the cart in the database.
+     */
+    public void onCheckedOut(Long userId) {
+        cartSummaryCache.evictAfterCommit(userId);
     }
 
     /**
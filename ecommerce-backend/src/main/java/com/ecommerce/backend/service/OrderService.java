@@ -0,0 +1,368 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.analytics.DistinctCountTracker;
+import com.ecommerce.backend.analytics.SalesRollupService;
+import com.ecommerce.backend.analytics.SalesRollupService.SoldLine;
+import com.ecommerce.backend.analytics.TrendingProductsTracker;
+import com.ecommerce.backend.cache.ProductCache;
+import com.ecommerce.backend.dto.CheckoutRequest;
+import com.ecommerce.backend.dto.CursorPage;
+import com.ecommerce.backend.dto.OrderDto;
+import com.ecommerce.backend.dto.OrderItemDto;
+import com.ecommerce.backend.dto.StockReservationDto;
+import com.ecommerce.backend.entity.Cart;
+import com.ecommerce.backend.entity.CartItem;
+import com.ecommerce.backend.entity.Order;
+import com.ecommerce.backend.entity.OrderItem;
+import com.ecommerce.backend.entity.OrderStatus;
+import com.ecommerce.backend.entity.Product;
+import com.ecommerce.backend.exception.CustomExceptions.*;
+import com.ecommerce.backend.exception.ResourceNotFoundException;
+import com.ecommerce.backend.order.OrderNumberGenerator;
+import com.ecommerce.backend.repository.CartItemRepository;
+import com.ecommerce.backend.repository.CartRepository;
+import com.ecommerce.backend.repository.OrderItemRepository;
+import com.ecommerce.backend.repository.OrderRepository;
+import com.ecommerce.backend.repository.UserRepository;
+import com.ecommerce.backend.service.StockReservationService.Reservation;
+import com.ecommerce.backend.util.KeysetCursor;
+import com.ecommerce.backend.util.Money;
+import com.ecommerce.backend.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Turns a cart into an order.
+ * <p>
+ * Checkout issues a fixed number of statements however large the cart is: one query for the
+ * cart, one for its items with their products, one batched conditional stock update, the order
+ * insert, the order item inserts batched by {@code hibernate.jdbc.batch_size}, and the cart
+ * clear. Stock updates and item inserts go through JDBC because identity ids keep Hibernate from
+ * batching inserts; they share the JPA transaction's connection.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderService {
+
+    private static final String HISTORY_SORT_FIELD = "orderDate";
+
+    private static final String DECREASE_STOCK_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, version = version + 1 " +
+            "WHERE id = ? AND active = true AND stock_quantity >= ?";
+
+    private static final String INSERT_ORDER_ITEM_SQL =
+            "INSERT INTO order_items (order_id, product_id, product_name, product_sku, quantity, " +
+            "unit_price, sub_total, created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final UserRepository userRepository;
+    private final CartService cartService;
+    private final StockReservationService stockReservationService;
+    private final ProductCache productCache;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final SalesRollupService salesRollupService;
+    private final TrendingProductsTracker trendingProductsTracker;
+    private final DistinctCountTracker distinctCountTracker;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:20}")
+    private int batchSize;
+
+    /**
+     * Places an order for everything in the user's cart and empties the cart. Stock comes from
+     * the given reservation when there is one, otherwise it is taken from the products rows.
+     */
+    @Transactional
+    public OrderDto checkout(Long userId, CheckoutRequest request) {
+        cartService.prepareForCheckout(userId);
+        Cart cart = cartRepository.findByUserId(userId)
+                .orElseThrow(() -> new CartEmptyException("Cannot checkout with empty cart"));
+        List<CartItem> items = cartItemRepository.findByCartIdWithProduct(cart.getId());
+        if (items.isEmpty()) {
+            throw new CartEmptyException("Cannot checkout with empty cart");
+        }
+        // Sorted by product so that concurrent checkouts lock product rows in the same order
+        items.sort(Comparator.comparing(item -> item.getProduct().getId()));
+        reconcileCartTotals(cart, items);
+        items.forEach(item -> {
+            if (!item.getProduct().isActive()) {
+                throw new ProductNotAvailableException("Product '" + item.getProduct().getName() + "' is no longer available");
+            }
+        });
+
+        if (request.getReservationId() != null) {
+            useReservation(userId, request.getReservationId(), items);
+        } else {
+            decreaseStock(items);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        CheckoutRequest.ShippingAddress address = request.getShippingAddress();
+        Order order = Order.builder()
+                .orderNumber(orderNumberGenerator.nextOrderNumber())
+                .user(userRepository.getReferenceById(userId))
+                .status(OrderStatus.PENDING)
+                .orderDate(now)
+                .totalItems(items.stream().mapToInt(CartItem::getQuantity).sum())
+                .totalAmount(items.stream()
+                        .map(item -> lineTotal(item.getProduct(), item.getQuantity()))
+                        .reduce(BigDecimal.ZERO, BigDecimal::add))
+                .shippingAddressLine1(address.getAddressLine1())
+                .shippingAddressLine2(address.getAddressLine2())
+                .shippingCity(address.getCity())
+                .shippingState(address.getState())
+                .shippingPostalCode(address.getPostalCode())
+                .shippingCountry(address.getCountry())
+                .paymentMethod(request.getPaymentMethod())
+                .paymentStatus("PENDING")
+                .notes(request.getNotes())
+                .build();
+        order = orderRepository.save(order);
+
+        insertOrderItems(order.getId(), items, now);
+        List<SoldLine> soldLines = items.stream()
+                .map(item -> new SoldLine(item.getProduct().getId(), item.getProduct().getName(),
+                        item.getProduct().getCategory(), item.getQuantity(), lineTotal(item.getProduct(), item.getQuantity())))
+                .toList();
+        salesRollupService.onOrderPlaced(order, soldLines);
+        trendingProductsTracker.recordAfterCommit(soldLines);
+        distinctCountTracker.recordPurchaseAfterCommit(userId, soldLines);
+
+        cartItemRepository.deleteByCartId(cart.getId());
+        cart.resetTotals();
+        cartService.onCheckedOut(userId);
+
+        log.info("Order {} placed by user {} with {} lines", order.getOrderNumber(), userId, items.size());
+        return toOrderDto(order, items);
+    }
+
+    /**
+     * Moves an order to a new status. Status changes should go through here rather than the
+     * repository, so that the sales rollups follow them.
+     */
+    @Transactional
+    public void updateStatus(Long orderId, OrderStatus status) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
+        OrderStatus from = order.getStatus();
+        if (!canMove(from, status)) {
+            throw new InvalidOrderStateException("Order cannot move from " + from + " to " + status);
+        }
+        // Conditional, so two concurrent changes cannot both move the order out of the same status
+        if (orderRepository.compareAndSetStatus(orderId, from, status) == 0) {
+            throw new ConflictException("Order status was changed concurrently");
+        }
+        salesRollupService.onStatusChanged(order, from, status);
+        log.info("Order {} moved from {} to {}", order.getOrderNumber(), from, status);
+    }
+
+    /**
+     * One page of the user's orders, newest first, with their items. The page is a seek on
+     * (orderDate, id), so it costs the same at any depth, and its items come from a single
+     * query on the page's order ids: two statements per page and nothing held beyond it.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderDto> getOrderHistory(Long userId, String cursor, int size) {
+        Pageable limit = PageRequest.of(0, size);
+        Slice<Order> slice;
+        if (cursor == null || cursor.isBlank()) {
+            slice = orderRepository.findHistoryFirst(userId, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            if (!HISTORY_SORT_FIELD.equals(after.getSortField()) || !after.isDescending()) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            LocalDateTime orderDate;
+            try {
+                orderDate = LocalDateTime.parse(after.getSortValue());
+            } catch (DateTimeParseException e) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            slice = orderRepository.findHistoryAfter(userId, orderDate, after.getId(), limit);
+        }
+
+        List<Order> orders = slice.getContent();
+        Map<Long, List<OrderItemDto>> itemsByOrder = new HashMap<>();
+        if (!orders.isEmpty()) {
+            for (OrderItem item : orderItemRepository.findByOrderIdIn(orders.stream().map(Order::getId).toList())) {
+                itemsByOrder.computeIfAbsent(item.getOrder().getId(), id -> new ArrayList<>()).add(toOrderItemDto(item));
+            }
+        }
+
+        String nextCursor = null;
+        if (slice.hasNext() && !orders.isEmpty()) {
+            Order last = orders.get(orders.size() - 1);
+            nextCursor = new KeysetCursor(HISTORY_SORT_FIELD, true, last.getOrderDate().toString(), last.getId()).encode();
+        }
+
+        return CursorPage.<OrderDto>builder()
+                .content(orders.stream()
+                        .map(order -> buildOrderDto(order, itemsByOrder.getOrDefault(order.getId(), List.of())))
+                        .toList())
+                .size(orders.size())
+                .hasNext(slice.hasNext())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Holds stock for the current cart ahead of checkout, so that payment can be collected
+     * without the items selling out in the meantime. Runs outside a transaction: a refill takes
+     * its own connection, and holding a second one meanwhile could starve the pool.
+     */
+    public StockReservationDto reserveCart(Long userId) {
+        cartService.prepareForCheckout(userId);
+        List<CartItem> items = cartItemRepository.findByUserIdWithProduct(userId);
+        if (items.isEmpty()) {
+            throw new CartEmptyException("Cannot reserve stock for an empty cart");
+        }
+        Reservation reservation = stockReservationService.reserve(userId, quantitiesByProduct(items));
+        return StockReservationDto.builder()
+                .reservationId(reservation.getId())
+                .lines(reservation.getLines())
+                .expiresAt(reservation.getExpiresAt())
+                .build();
+    }
+
+    /**
+     * Cart totals are maintained by deltas on each edit; checkout is where they are checked
+     * against the items, so drift from a bug or a write outside the cart service gets noticed.
+     */
+    private void reconcileCartTotals(Cart cart, List<CartItem> items) {
+        int storedItems = cart.getTotalItems() != null ? cart.getTotalItems() : 0;
+        long storedAmountMinor = cart.getTotalAmountMinor();
+        int actualItems = items.stream().mapToInt(CartItem::getQuantity).sum();
+        long actualAmountMinor = items.stream().mapToLong(item -> Money.toMinor(item.getSubTotal())).sum();
+        if (storedItems != actualItems || storedAmountMinor != actualAmountMinor) {
+            log.warn("Cart {} totals drifted: stored {} items / {} minor units, actual {} items / {} minor units",
+                    cart.getId(), storedItems, storedAmountMinor, actualItems, actualAmountMinor);
+        }
+    }
+
+    private void useReservation(Long userId, String reservationId, List<CartItem> items) {
+        Reservation reservation = stockReservationService.getReservation(reservationId, userId);
+        if (!reservation.getLines().equals(quantitiesByProduct(items))) {
+            throw new BadRequestException("Cart has changed since stock was reserved");
+        }
+        stockReservationService.confirm(reservationId);
+        TransactionUtils.afterRollback(() -> stockReservationService.returnConfirmed(reservation));
+    }
+
+    private void decreaseStock(List<CartItem> items) {
+        int[] updated = jdbcTemplate.batchUpdate(DECREASE_STOCK_SQL, items.stream()
+                .map(item -> new Object[]{item.getQuantity(), item.getProduct().getId(), item.getQuantity()})
+                .toList());
+        for (int i = 0; i < updated.length; i++) {
+            Product product = items.get(i).getProduct();
+            if (updated[i] == Statement.SUCCESS_NO_INFO) {
+                // Without a count there is no telling whether the conditional decrement applied
+                throw new IllegalStateException("JDBC driver did not report update counts for the stock decrement");
+            }
+            if (updated[i] != 1) {
+                throw new InsufficientStockException(product.getName(), items.get(i).getQuantity(), product.getStockQuantity());
+            }
+        }
+        items.forEach(item -> productCache.onStockChangedAfterCommit(item.getProduct().getId(), -item.getQuantity()));
+    }
+
+    private void insertOrderItems(Long orderId, List<CartItem> items, LocalDateTime now) {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM_SQL, items, batchSize, (ps, item) -> {
+            Product product = item.getProduct();
+            ps.setLong(1, orderId);
+            ps.setLong(2, product.getId());
+            ps.setString(3, product.getName());
+            ps.setString(4, product.getSku());
+            ps.setInt(5, item.getQuantity());
+            ps.setBigDecimal(6, product.getPrice());
+            ps.setBigDecimal(7, lineTotal(product, item.getQuantity()));
+            ps.setTimestamp(8, timestamp);
+            ps.setTimestamp(9, timestamp);
+        });
+    }
+
+    private static boolean canMove(OrderStatus from, OrderStatus to) {
+        return switch (from) {
+            case PENDING -> to == OrderStatus.PROCESSING || to == OrderStatus.CANCELLED;
+            case PROCESSING -> to == OrderStatus.SHIPPED || to == OrderStatus.CANCELLED;
+            case SHIPPED -> to == OrderStatus.DELIVERED;
+            case DELIVERED, CANCELLED -> false;
+        };
+    }
+
+    private static BigDecimal lineTotal(Product product, int quantity) {
+        return product.getPrice().multiply(BigDecimal.valueOf(quantity));
+    }
+
+    private static Map<Long, Integer> quantitiesByProduct(List<CartItem> items) {
+        return items.stream().collect(Collectors.toMap(
+                item -> item.getProduct().getId(), CartItem::getQuantity, Integer::sum, LinkedHashMap::new));
+    }
+
+    private OrderDto toOrderDto(Order order, List<CartItem> items) {
+        return buildOrderDto(order, items.stream()
+                .map(item -> OrderItemDto.builder()
+                        .productId(item.getProduct().getId())
+                        .productName(item.getProduct().getName())
+                        .productSku(item.getProduct().getSku())
+                        .unitPrice(item.getProduct().getPrice())
+                        .quantity(item.getQuantity())
+                        .subTotal(lineTotal(item.getProduct(), item.getQuantity()))
+                        .build())
+                .toList());
+    }
+
+    // Product id is read from the lazy reference without loading the product
+    private static OrderItemDto toOrderItemDto(OrderItem item) {
+        return OrderItemDto.builder()
+                .id(item.getId())
+                .productId(item.getProduct().getId())
+                .productName(item.getProductName())
+                .productSku(item.getProductSku())
+                .unitPrice(item.getUnitPrice())
+                .quantity(item.getQuantity())
+                .subTotal(item.getSubTotal())
+                .build();
+    }
+
+    private static OrderDto buildOrderDto(Order order, List<OrderItemDto> itemDtos) {
+        return OrderDto.builder()
+                .id(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .status(order.getStatus())
+                .orderDate(order.getOrderDate())
+                .items(itemDtos)
+                .totalItems(order.getTotalItems())
+                .totalAmount(order.getTotalAmount())
+                .shippingAddress(order.getFullShippingAddress())
+                .paymentMethod(order.getPaymentMethod())
+                .paymentStatus(order.getPaymentStatus())
+                .trackingNumber(order.getTrackingNumber())
+                .notes(order.getNotes())
+                .build();
+    }
+}
@@ -1,16 +1,34 @@
 package com.ecommerce.backend.service;
 
+import com.ecommerce.backend.cache.ProductCache;
+import com.ecommerce.backend.dto.CursorPage;
 import com.ecommerce.backend.entity.Product;
+import com.ecommerce.backend.exception.CustomExceptions.BadRequestException;
 import com.ecommerce.backend.exception.ResourceNotFoundException;
 import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.search.ProductSearchIndex;
+import com.ecommerce.backend.util.KeysetCursor;
+import com.ecommerce.backend.util.TransactionUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -18,9 +36,23 @@ import java.time.LocalDateTime;
 @Transactional
 public class ProductService {
 
+    private static final Set<String> CURSOR_SORT_FIELDS = Set.of("id", "price", "createdAt");
+
     private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Published after the commit of an admin edit that set a product's stock outright.
+     */
+    public record StockSetEvent(Long productId, int stockEpoch) {
+    }
 
     public Page<Product> getAllProducts(String search, String category, Pageable pageable) {
+        if (search != null && !search.trim().isEmpty() && canUseSearchIndex(pageable)) {
+            return productSearchIndex.toPage(productSearchIndex.search(search, category, pageable), pageable);
+        }
         if (search != null && !search.trim().isEmpty() && category != null && !category.trim().isEmpty()) {
             return productRepository.findByNameContainingIgnoreCaseAndCategoryIgnoreCaseAndActiveTrue(
                     search.trim(), category.trim(), pageable);
@@ -34,12 +66,103 @@ public class ProductService {
         }
     }
 
-    @Transactional(readOnly = true)
+    // Served from the product cache; no transaction is opened for a cache hit
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Product getProductById(Long id) {
-        return productRepository.findByIdAndActiveTrue(id)
+        return productCache.getById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
     }
 
+    /**
+     * Cursor-based listing of active products. Each page is a seek on (sort key, id),
+     * so latency does not grow with depth, and no count query is issued.
+     * When a cursor is given, its own sort field and direction are used.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Product> getProductsByCursor(String cursor, int size, String sortBy, String sortDir) {
+        KeysetCursor after = cursor != null && !cursor.isBlank() ? KeysetCursor.decode(cursor) : null;
+        String sortField = after != null ? after.getSortField() : sortBy;
+        boolean descending = after != null ? after.isDescending() : "desc".equalsIgnoreCase(sortDir);
+
+        if (!CURSOR_SORT_FIELDS.contains(sortField)) {
+            throw new BadRequestException("Cursor pagination supports sorting by " + CURSOR_SORT_FIELDS);
+        }
+
+        Slice<Product> slice;
+        Pageable limit = PageRequest.of(0, size);
+        if (after == null) {
+            Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+            Sort sort = "id".equals(sortField)
+                    ? Sort.by(direction, "id")
+                    : Sort.by(direction, sortField).and(Sort.by(direction, "id"));
+            slice = productRepository.findActiveSlice(PageRequest.of(0, size, sort));
+        } else {
+            slice = seekAfter(after, limit);
+        }
+
+        List<Product> content = slice.getContent();
+        String nextCursor = null;
+        if (slice.hasNext() && !content.isEmpty()) {
+            Product last = content.get(content.size() - 1);
+            nextCursor = new KeysetCursor(sortField, descending, sortValueOf(last, sortField), last.getId()).encode();
+        }
+
+        return CursorPage.<Product>builder()
+                .content(content)
+                .size(content.size())
+                .hasNext(slice.hasNext())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private Slice<Product> seekAfter(KeysetCursor after, Pageable limit) {
+        switch (after.getSortField()) {
+            case "price": {
+                BigDecimal price;
+                try {
+                    price = new BigDecimal(after.getSortValue());
+                } catch (NumberFormatException e) {
+                    throw new BadRequestException("Invalid cursor");
+                }
+                return after.isDescending()
+                        ? productRepository.findActiveAfterPriceDesc(price, after.getId(), limit)
+                        : productRepository.findActiveAfterPriceAsc(price, after.getId(), limit);
+            }
+            case "createdAt": {
+                LocalDateTime createdAt;
+                try {
+                    createdAt = LocalDateTime.parse(after.getSortValue());
+                } catch (DateTimeParseException e) {
+                    throw new BadRequestException("Invalid cursor");
+                }
+                return after.isDescending()
+                        ? productRepository.findActiveAfterCreatedAtDesc(createdAt, after.getId(), limit)
+                        : productRepository.findActiveAfterCreatedAtAsc(createdAt, after.getId(), limit);
+            }
+            default:
+                return after.isDescending()
+                        ? productRepository.findActiveAfterIdDesc(after.getId(), limit)
+                        : productRepository.findActiveAfterIdAsc(after.getId(), limit);
+        }
+    }
+
+    private String sortValueOf(Product product, String sortField) {
+        switch (sortField) {
+            case "price":
+                return product.getPrice().toPlainString();
+            case "createdAt":
+                return product.getCreatedAt().toString();
+            default:
+                return null;
+        }
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Product getProductBySku(String sku) {
+        return productCache.getBySku(sku)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with sku: " + sku));
+    }
+
     public Product createProduct(Product product) {
         // Set audit fields
         product.setCreatedAt(LocalDateTime.now());
@@ -52,17 +175,27 @@ public class ProductService {
         }
         
         log.info("Creating product: {}", product.getName());
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        productCache.putAfterCommit(savedProduct);
+        TransactionUtils.afterCommit(() -> productSearchIndex.index(savedProduct));
+        return savedProduct;
     }
 
     public Product updateProduct(Long id, Product productUpdate) {
-        Product existingProduct = getProductById(id);
+        Product existingProduct = findManagedProduct(id);
         
         // Update fields
         existingProduct.setName(productUpdate.getName());
         existingProduct.setDescription(productUpdate.getDescription());
         existingProduct.setPrice(productUpdate.getPrice());
         existingProduct.setCategory(productUpdate.getCategory());
+        boolean stockSet = existingProduct.getStockQuantity() != productUpdate.getStockQuantity();
+        if (stockSet) {
+            // The new figure is what is left to sell: unreserved units in node allotments are dropped, not added back
+            int stockEpoch = existingProduct.getStockEpoch() != null ? existingProduct.getStockEpoch() + 1 : 1;
+            existingProduct.setStockEpoch(stockEpoch);
+            TransactionUtils.afterCommit(() -> eventPublisher.publishEvent(new StockSetEvent(id, stockEpoch)));
+        }
         existingProduct.setStockQuantity(productUpdate.getStockQuantity());
         existingProduct.setBrand(productUpdate.getBrand());
         existingProduct.setImageUrl(productUpdate.getImageUrl());
@@ -77,20 +210,96 @@ public class ProductService {
         }
         
         log.info("Updating product: {}", existingProduct.getName());
-        return productRepository.save(existingProduct);
+        Product savedProduct = productRepository.save(existingProduct);
+        productCache.evictAfterCommit(id);
+        productCache.putAfterCommit(savedProduct);
+        TransactionUtils.afterCommit(() -> productSearchIndex.index(savedProduct));
+        return savedProduct;
     }
 
     public void deleteProduct(Long id) {
-        Product product = getProductById(id);
+        Product product = findManagedProduct(id);
         
         // Soft delete by setting active to false
         product.setActive(false);
         product.setUpdatedAt(LocalDateTime.now());
         
         productRepository.save(product);
+        productCache.evictAfterCommit(id);
+        TransactionUtils.afterCommit(() -> productSearchIndex.remove(id));
         log.info("Product deleted (soft): {}", product.getName());
     }
 
+    /**
+     * Conditionally decrements stock; returns false when not enough stock is left.
+     */
+    public boolean decreaseStock(Long productId, int quantity) {
+        boolean updated = productRepository.decreaseStock(productId, quantity) > 0;
+        if (updated) {
+            productCache.onStockChangedAfterCommit(productId, -quantity);
+        }
+        return updated;
+    }
+
+    public boolean increaseStock(Long productId, int quantity) {
+        boolean updated = productRepository.increaseStock(productId, quantity) > 0;
+        if (updated) {
+            productCache.onStockChangedAfterCommit(productId, quantity);
+        }
+        return updated;
+    }
+
+    /**
+     * Takes stock out of the database into a node's allotment. Returns the product's stock epoch
+     * at that point, or null if there is not enough stock.
+     */
+    public Integer allotStock(Long productId, int quantity) {
+        if (!decreaseStock(productId, quantity)) {
+            return null;
+        }
+        // The row is locked by the decrement, so no admin edit can slip in between
+        return productRepository.findStockEpoch(productId);
+    }
+
+    /**
+     * Puts allotted stock back, unless stock has been set outright since it was taken: the new
+     * figure already counts those units. Returns whether the units went back.
+     */
+    public boolean returnAllottedStock(Long productId, int quantity, int stockEpoch) {
+        boolean updated = productRepository.returnAllottedStock(productId, quantity, stockEpoch) > 0;
+        if (updated) {
+            productCache.onStockChangedAfterCommit(productId, quantity);
+        }
+        return updated;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> getStockEpochs(Collection<Long> productIds) {
+        Map<Long, Integer> epochs = new HashMap<>();
+        for (Object[] row : productRepository.findStockEpochs(productIds)) {
+            epochs.put((Long) row[0], (Integer) row[1]);
+        }
+        return epochs;
+    }
+
+    /**
+     * The index ranks by relevance, so it only serves requests that did not ask for another order
+     * (the listing endpoint defaults to sorting by id).
+     */
+    private boolean canUseSearchIndex(Pageable pageable) {
+        if (!productSearchIndex.isAvailable()) {
+            return false;
+        }
+        Sort sort = pageable.getSort();
+        return sort.isUnsorted() || (sort.stream().count() == 1 && sort.getOrderFor("id") != null);
+    }
+
+    // Writes must work on a managed entity, never on a cached snapshot
+    private Product findManagedProduct(Long id) {
+        return productRepository.findByIdAndActiveTrue(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+    }
+
     @Transactional(readOnly = true)
     public Page<Product> getProductsByCategory(String category, Pageable pageable) {
         return productRepository.findByCategoryIgnoreCaseAndActiveTrue(category, pageable);
@@ -98,6 +307,9 @@ public class ProductService {
 
     @Transactional(readOnly = true)
     public Page<Product> searchProducts(String query, Pageable pageable) {
+        if (canUseSearchIndex(pageable)) {
+            return productSearchIndex.toPage(productSearchIndex.search(query, null, pageable), pageable);
+        }
         return productRepository.findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndActiveTrue(
                 query, query, pageable);
     }
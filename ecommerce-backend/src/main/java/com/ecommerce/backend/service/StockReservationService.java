@@ -0,0 +1,413 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.exception.CustomExceptions.BadRequestException;
+import com.ecommerce.backend.exception.CustomExceptions.InsufficientStockException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds stock for a checkout until it is confirmed, released or times out.
+ * <p>
+ * Each node keeps a per-product allotment of stock it has already taken from the database with
+ * {@code decreaseStock}. Reservations are carved out of the allotment with a compare-and-set, so
+ * concurrent checkouts of a hot product do not queue on its row lock; the row is only touched
+ * once per {@code stock.reservation.allotment-chunk} units, and the conditional decrement keeps
+ * the database from ever going negative. Released stock goes back to the allotment, and idle
+ * allotments are returned to the database.
+ * <p>
+ * An admin edit that sets stock outright bumps the product's stock epoch. Allotted units are
+ * tagged with the epoch they were taken under and are dropped rather than returned once it has
+ * moved on, since the new figure already counts them. The editing node drops its allotment at
+ * once; other nodes notice on their next refill or sweep.
+ * <p>
+ * Reservations live in memory: if a node dies, stock held in its allotment is not returned
+ * automatically (the catalog undersells until corrected) but is never oversold.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockReservationService {
+
+    public enum ReservationState {
+        RESERVED,
+        CONFIRMED,
+        RELEASED
+    }
+
+    private final ProductService productService;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${stock.reservation.ttl:600000}")
+    private long reservationTtlMs;
+
+    @Value("${stock.reservation.allotment-chunk:10}")
+    private int allotmentChunk;
+
+    @Value("${stock.reservation.allotment-idle:60000}")
+    private long allotmentIdleMs;
+
+    @Value("${stock.reservation.sold-out-backoff:2000}")
+    private long soldOutBackoffMs;
+
+    private final Map<Long, Allotment> allotments = new ConcurrentHashMap<>();
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+
+    // Stock pulls and returns commit on their own. Callers hold no transaction (see reserve), so
+    // this never takes a second pooled connection while a first one sits idle
+    private TransactionTemplate stockTransaction;
+    private Counter allotmentRefills;
+
+    @PostConstruct
+    void init() {
+        stockTransaction = new TransactionTemplate(transactionManager);
+        stockTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        allotmentRefills = Counter.builder("stock.reservation.refills")
+                .description("Allotment refills taken from the database")
+                .register(meterRegistry);
+        Gauge.builder("stock.reservation.active", reservations, Map::size)
+                .description("Reservations currently holding stock")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Holds the requested quantity of every product, or nothing at all.
+     *
+     * @param lines product id to quantity
+     */
+    public Reservation reserve(Long userId, Map<Long, Integer> lines) {
+        if (lines.isEmpty()) {
+            throw new BadRequestException("Nothing to reserve");
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Stock must be reserved outside a transaction");
+        }
+        // Sorted so that concurrent multi-line reservations refill in a consistent order
+        Map<Long, Integer> sortedLines = new TreeMap<>(lines);
+        Map<Long, Integer> epochs = new HashMap<>();
+        try {
+            for (Map.Entry<Long, Integer> line : sortedLines.entrySet()) {
+                epochs.put(line.getKey(), acquire(line.getKey(), line.getValue()));
+            }
+        } catch (RuntimeException e) {
+            epochs.forEach((productId, epoch) -> allotmentFor(productId).give(sortedLines.get(productId), epoch));
+            throw e;
+        }
+
+        Reservation reservation = new Reservation(UUID.randomUUID().toString(), userId,
+                Collections.unmodifiableMap(sortedLines), epochs, Instant.now().plusMillis(reservationTtlMs));
+        reservations.put(reservation.getId(), reservation);
+        log.debug("Stock reserved {} for user {}: {}", reservation.getId(), userId, sortedLines);
+        return reservation;
+    }
+
+    public Reservation getReservation(String reservationId, Long userId) {
+        Reservation reservation = reservations.get(reservationId);
+        if (reservation == null || !reservation.getUserId().equals(userId)
+                || reservation.getState() != ReservationState.RESERVED) {
+            throw new BadRequestException("Reservation not found or no longer active: " + reservationId);
+        }
+        return reservation;
+    }
+
+    /**
+     * Makes the hold permanent; the stock has already left the database.
+     */
+    public void confirm(String reservationId) {
+        Reservation reservation = reservations.get(reservationId);
+        if (reservation == null || !reservation.transition(ReservationState.CONFIRMED)) {
+            throw new BadRequestException("Reservation not found or no longer active: " + reservationId);
+        }
+        reservations.remove(reservationId);
+        log.debug("Stock reservation {} confirmed", reservationId);
+    }
+
+    public void release(String reservationId) {
+        Reservation reservation = reservations.get(reservationId);
+        if (reservation != null && reservation.transition(ReservationState.RELEASED)) {
+            reservations.remove(reservationId);
+            giveBack(reservation);
+            log.debug("Stock reservation {} released", reservationId);
+        }
+    }
+
+    /**
+     * Puts the stock of a confirmed reservation back into the allotments, for an order that
+     * consumed it but then rolled back.
+     */
+    public void returnConfirmed(Reservation reservation) {
+        giveBack(reservation);
+        log.debug("Stock of rolled back reservation {} returned", reservation.getId());
+    }
+
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-interval:15000}")
+    public void releaseExpiredReservations() {
+        Instant now = Instant.now();
+        reservations.values().stream()
+                .filter(reservation -> reservation.getExpiresAt().isBefore(now))
+                .map(Reservation::getId)
+                .toList()
+                .forEach(id -> {
+                    log.info("Stock reservation {} expired", id);
+                    release(id);
+                });
+    }
+
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-interval:15000}")
+    public void returnIdleAllotments() {
+        long idleBefore = System.currentTimeMillis() - allotmentIdleMs;
+        List<Long> held = new ArrayList<>();
+        allotments.forEach((productId, allotment) -> {
+            if (allotment.lastUsedMs < idleBefore) {
+                returnToDatabase(productId, allotment);
+            } else if (allotment.available() > 0) {
+                held.add(productId);
+            }
+        });
+        // Stock set outright through another node only shows up here or on the next refill
+        if (!held.isEmpty()) {
+            productService.getStockEpochs(held).forEach(this::supersede);
+        }
+    }
+
+    @EventListener
+    public void onStockSet(ProductService.StockSetEvent event) {
+        supersede(event.productId(), event.stockEpoch());
+    }
+
+    @PreDestroy
+    public void returnAllAllotments() {
+        allotments.forEach(this::returnToDatabase);
+    }
+
+    /**
+     * Takes the quantity out of the product's allotment, refilling it as needed, and returns the
+     * stock epoch the units belong to.
+     */
+    private int acquire(Long productId, int quantity) {
+        Allotment allotment = allotmentFor(productId);
+        int epoch = allotment.tryTake(quantity);
+        if (epoch >= 0) {
+            return epoch;
+        }
+        // Only the refill path locks, and only per product. A lock rather than a monitor, so that
+        // virtual threads waiting on a refill do not pin their carriers
+        allotment.refillLock.lock();
+        try {
+            while ((epoch = allotment.tryTake(quantity)) < 0) {
+                // Recently found sold out: fail fast instead of hitting the row again
+                if (allotment.soldOutUntilMs > System.currentTimeMillis()) {
+                    throw insufficientStock(productId, quantity);
+                }
+                int shortfall = Math.max(1, quantity - allotment.available());
+                int refill = Math.max(shortfall, allotmentChunk);
+                Integer pulledEpoch = pull(productId, refill);
+                if (pulledEpoch == null) {
+                    // Less than a full chunk left: take exactly what is missing, if even that exists.
+                    // When the shortfall is a chunk or more, that is what was just refused
+                    refill = shortfall;
+                    if (shortfall >= allotmentChunk || (pulledEpoch = pull(productId, refill)) == null) {
+                        allotment.soldOutUntilMs = System.currentTimeMillis() + soldOutBackoffMs;
+                        throw insufficientStock(productId, quantity);
+                    }
+                }
+                allotment.addPulled(refill, pulledEpoch);
+            }
+            return epoch;
+        } finally {
+            allotment.refillLock.unlock();
+        }
+    }
+
+    private InsufficientStockException insufficientStock(Long productId, int quantity) {
+        return new InsufficientStockException("Insufficient stock for product " + productId + ". Requested: " + quantity);
+    }
+
+    // Returns the stock epoch the pulled units belong to, or null if there was not enough stock
+    private Integer pull(Long productId, int quantity) {
+        Integer epoch = stockTransaction.execute(status -> productService.allotStock(productId, quantity));
+        if (epoch != null) {
+            allotmentRefills.increment();
+        }
+        return epoch;
+    }
+
+    private void returnToDatabase(Long productId, Allotment allotment) {
+        long drained = allotment.drain();
+        int quantity = Allotment.unitsOf(drained);
+        int epoch = Allotment.epochOf(drained);
+        if (quantity > 0) {
+            try {
+                Boolean returned = stockTransaction.execute(
+                        status -> productService.returnAllottedStock(productId, quantity, epoch));
+                if (Boolean.TRUE.equals(returned)) {
+                    log.debug("Returned {} units of product {} to the database", quantity, productId);
+                } else {
+                    log.info("Dropped {} allotted units of product {}: stock was set since", quantity, productId);
+                }
+            } catch (RuntimeException e) {
+                allotment.give(quantity, epoch);
+                log.error("Failed to return stock for product {}: {}", productId, e.getMessage());
+            }
+        }
+    }
+
+    private void supersede(Long productId, int stockEpoch) {
+        Allotment allotment = allotments.get(productId);
+        if (allotment == null) {
+            return;
+        }
+        int dropped = allotment.supersede(stockEpoch);
+        if (dropped >= 0) {
+            // Stock was set, possibly restocked: a sold-out backoff no longer holds
+            allotment.soldOutUntilMs = 0;
+            log.info("Dropped {} allotted units of product {}: stock was set", dropped, productId);
+        }
+    }
+
+    private void giveBack(Reservation reservation) {
+        reservation.getLines().forEach((productId, quantity) -> {
+            if (!allotmentFor(productId).give(quantity, reservation.epochs.get(productId))) {
+                log.debug("Dropped {} reserved units of product {}: stock was set since", quantity, productId);
+            }
+        });
+    }
+
+    private Allotment allotmentFor(Long productId) {
+        return allotments.computeIfAbsent(productId, id -> new Allotment());
+    }
+
+    private static final class Allotment {
+        // Stock epoch in the high half and available units in the low half, so that taking units
+        // and dropping a superseded epoch cannot interleave
+        private final AtomicLong state = new AtomicLong();
+        private final ReentrantLock refillLock = new ReentrantLock();
+        private volatile long lastUsedMs = System.currentTimeMillis();
+        private volatile long soldOutUntilMs;
+
+        static long pack(int epoch, int units) {
+            return ((long) epoch << 32) | units;
+        }
+
+        static int epochOf(long state) {
+            return (int) (state >>> 32);
+        }
+
+        static int unitsOf(long state) {
+            return (int) state;
+        }
+
+        int available() {
+            return unitsOf(state.get());
+        }
+
+        // Returns the epoch of the units taken, or -1 if there are not enough
+        int tryTake(int quantity) {
+            lastUsedMs = System.currentTimeMillis();
+            long current;
+            do {
+                current = state.get();
+                if (unitsOf(current) < quantity) {
+                    return -1;
+                }
+            } while (!state.compareAndSet(current, current - quantity));
+            return epochOf(current);
+        }
+
+        // Units of a superseded epoch are not taken back
+        boolean give(int quantity, int epoch) {
+            long current;
+            do {
+                current = state.get();
+                if (epochOf(current) != epoch) {
+                    return false;
+                }
+            } while (!state.compareAndSet(current, current + quantity));
+            return true;
+        }
+
+        // Units pulled under a newer epoch replace whatever is left of the older one
+        void addPulled(int quantity, int epoch) {
+            long current;
+            long next;
+            do {
+                current = state.get();
+                if (epoch < epochOf(current)) {
+                    return;
+                }
+                next = epoch == epochOf(current) ? current + quantity : pack(epoch, quantity);
+            } while (!state.compareAndSet(current, next));
+        }
+
+        // Returns how many units of older epochs were dropped, or -1 if the epoch is not newer
+        int supersede(int epoch) {
+            long current;
+            do {
+                current = state.get();
+                if (epoch <= epochOf(current)) {
+                    return -1;
+                }
+            } while (!state.compareAndSet(current, pack(epoch, 0)));
+            return unitsOf(current);
+        }
+
+        long drain() {
+            return state.getAndUpdate(current -> pack(epochOf(current), 0));
+        }
+    }
+
+    @Getter
+    public static class Reservation {
+        private final String id;
+        private final Long userId;
+        private final Map<Long, Integer> lines;
+        @Getter(AccessLevel.NONE)
+        private final Map<Long, Integer> epochs;
+        private final Instant expiresAt;
+        private final AtomicReference<ReservationState> state = new AtomicReference<>(ReservationState.RESERVED);
+
+        Reservation(String id, Long userId, Map<Long, Integer> lines, Map<Long, Integer> epochs, Instant expiresAt) {
+            this.id = id;
+            this.userId = userId;
+            this.lines = lines;
+            this.epochs = epochs;
+            this.expiresAt = expiresAt;
+        }
+
+        public ReservationState getState() {
+            return state.get();
+        }
+
+        boolean transition(ReservationState target) {
+            return state.compareAndSet(ReservationState.RESERVED, target);
+        }
+    }
+}
@@ -0,0 +1,729 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.cache.CartSummaryCache;
+import com.ecommerce.backend.cache.ProductCache;
+import com.ecommerce.backend.dto.CartDto;
+import com.ecommerce.backend.dto.CartItemDto;
+import com.ecommerce.backend.dto.CartItemOperation;
+import com.ecommerce.backend.dto.CartSummaryDto;
+import com.ecommerce.backend.entity.Cart;
+import com.ecommerce.backend.entity.CartItem;
+import com.ecommerce.backend.entity.Product;
+import com.ecommerce.backend.exception.CustomExceptions.*;
+import com.ecommerce.backend.repository.CartItemRepository;
+import com.ecommerce.backend.repository.CartRepository;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.repository.UserRepository;
+import com.ecommerce.backend.util.Money;
+import com.ecommerce.backend.util.TransactionUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cart engine that keeps active carts in memory and writes them behind, enabled with
+ * {@code cart.engine=write-behind}.
+ * <p>
+ * A cart is loaded from the database on first use (which is also the recovery path after a
+ * restart) and from then on mutated in memory; product lookups go through {@link ProductCache}.
+ * Dirty carts are written every {@code cart.write-behind.flush-interval} in one transaction with
+ * batched statements, as well as when they are evicted, before checkout and at shutdown. Changes
+ * made since the last flush are lost if the node dies, so the interval bounds the loss window.
+ * <p>
+ * Flushes of one cart never overlap: each holds the cart's flush lock from taking its changes
+ * until they commit, and the changes only count as written once they have. Edits carry on under
+ * the cart's monitor meanwhile and go out with the next flush; changes whose write fails are put
+ * back and retried. Checkout writes the cart in its own transaction and holds the lock until that
+ * commits, then takes out of memory exactly what it ordered.
+ * <p>
+ * Items that have not been flushed yet have no database id; they are exposed with the negative
+ * product id, which the item endpoints accept as well as real ids. A cart must only be served by
+ * one node at a time (sticky sessions), as nodes do not see each other's unflushed changes.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "cart.engine", havingValue = "write-behind")
+@Transactional(propagation = Propagation.SUPPORTS)
+@Slf4j
+public class WriteBehindCartService extends CartService {
+
+    private static final String DELETE_ITEM_SQL =
+            "DELETE FROM cart_items WHERE cart_id = ? AND product_id = ?";
+    private static final String UPDATE_ITEM_SQL =
+            "UPDATE cart_items SET quantity = ?, unit_price = ?, sub_total = ?, updated_at = ?, version = version + 1 " +
+            "WHERE cart_id = ? AND product_id = ?";
+    private static final String UPDATE_CART_SQL =
+            "UPDATE carts SET total_amount = ?, total_amount_minor = ?, total_items = ?, updated_at = ?, version = version + 1 " +
+            "WHERE id = ?";
+
+    // Consecutive failed flushes after which a cart is dropped and reloaded from the database
+    private static final int MAX_FLUSH_FAILURES = 3;
+
+    private final CartRepository cartRepository;
+    private final UserRepository userRepository;
+    private final ProductCache productCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate flushTransaction;
+
+    @Value("${cart.write-behind.max-size:100000}")
+    private long maxSize;
+
+    @Value("${cart.write-behind.idle-timeout:1800000}")
+    private long idleTimeoutMs;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:20}")
+    private int batchSize;
+
+    private Cache<Long, CartState> carts;
+
+    public WriteBehindCartService(CartRepository cartRepository, CartItemRepository cartItemRepository,
+                                  ProductRepository productRepository, UserRepository userRepository,
+                                  ProductCache productCache, CartSummaryCache cartSummaryCache, JdbcTemplate jdbcTemplate,
+                                  EntityManager entityManager, MeterRegistry meterRegistry,
+                                  PlatformTransactionManager transactionManager) {
+        super(cartRepository, cartItemRepository, productRepository, userRepository, productCache, cartSummaryCache,
+                jdbcTemplate, entityManager);
+        this.cartRepository = cartRepository;
+        this.userRepository = userRepository;
+        this.productCache = productCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    void init() {
+        carts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofMillis(idleTimeoutMs))
+                .scheduler(Scheduler.systemScheduler())
+                // Runs before the entry is gone, so a returning user never reloads a stale cart
+                .evictionListener((Long userId, CartState state, RemovalCause cause) -> {
+                    if (state != null) {
+                        flush(List.of(state), true);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, carts, "carts.write-behind");
+        log.info("Write-behind cart engine enabled, max carts: {}, idle timeout: {} ms", maxSize, idleTimeoutMs);
+    }
+
+    @Override
+    public Cart getOrCreateCart(Long userId) {
+        CartState state = stateFor(userId);
+        synchronized (state) {
+            return state.toCart();
+        }
+    }
+
+    @Override
+    public CartDto getCartView(Long userId) {
+        CartState state = stateFor(userId);
+        synchronized (state) {
+            List<CartItemDto> items = new ArrayList<>(state.lines.size());
+            state.lines.forEach((productId, line) -> items.add(CartItemDto.builder()
+                    .id(line.itemId != null ? line.itemId : -productId)
+                    .productId(productId)
+                    .productName(line.product.getName())
+                    .productSku(line.product.getSku())
+                    .unitPrice(line.unitPrice)
+                    .quantity(line.quantity)
+                    .subTotal(line.unitPrice.multiply(BigDecimal.valueOf(line.quantity)))
+                    .build()));
+            return CartDto.builder()
+                    .id(state.cartId)
+                    .items(items)
+                    .totalItems(state.totalItems())
+                    .totalAmount(state.totalAmount())
+                    .build();
+        }
+    }
+
+    @Override
+    public Cart getCartByUserId(Long userId) {
+        return getOrCreateCart(userId);
+    }
+
+    @Override
+    public Cart addItemToCart(Long userId, Long productId, Integer quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0");
+        }
+        Product product = productCache.getById(productId)
+                .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + productId));
+
+        CartState state = stateFor(userId);
+        synchronized (state) {
+            Line line = state.lines.get(productId);
+            int newQuantity = line != null ? line.quantity + quantity : quantity;
+            if (product.getStockQuantity() < newQuantity) {
+                throw new InsufficientStockException("Insufficient stock. Available: " + product.getStockQuantity());
+            }
+            if (line == null) {
+                line = new Line(product, null, false);
+                line.unitPrice = product.getPrice();
+                state.lines.put(productId, line);
+            }
+            line.quantity = newQuantity;
+            line.dirty = true;
+            state.dirty = true;
+            return state.toCart();
+        }
+    }
+
+    @Override
+    public Cart updateCartItemQuantity(Long userId, Long cartItemId, Integer quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0");
+        }
+        CartState state = stateFor(userId);
+        synchronized (state) {
+            Line line = state.findLine(cartItemId);
+            Product product = productCache.getById(line.product.getId()).orElse(line.product);
+            if (product.getStockQuantity() < quantity) {
+                throw new InsufficientStockException("Insufficient stock. Available: " + product.getStockQuantity());
+            }
+            line.quantity = quantity;
+            line.dirty = true;
+            state.dirty = true;
+            return state.toCart();
+        }
+    }
+
+    @Override
+    public Cart removeItemFromCart(Long userId, Long cartItemId) {
+        CartState state = stateFor(userId);
+        synchronized (state) {
+            Line line = state.findLine(cartItemId);
+            state.remove(line.product.getId());
+            return state.toCart();
+        }
+    }
+
+    @Override
+    public Cart clearCart(Long userId) {
+        CartState state = stateFor(userId);
+        synchronized (state) {
+            if (state.lines.isEmpty()) {
+                throw new CartEmptyException("Cart is already empty");
+            }
+            new ArrayList<>(state.lines.keySet()).forEach(state::remove);
+            return state.toCart();
+        }
+    }
+
+    @Override
+    public CartSummaryDto getCartSummary(Long userId) {
+        CartState state = stateFor(userId);
+        synchronized (state) {
+            return new CartSummaryDto(state.totalItems(), state.totalAmount());
+        }
+    }
+
+    @Override
+    public Integer getCartItemCount(Long userId) {
+        CartState state = stateFor(userId);
+        synchronized (state) {
+            return state.totalItems();
+        }
+    }
+
+    @Override
+    public boolean cartExists(Long userId) {
+        return carts.getIfPresent(userId) != null || cartRepository.existsByUserId(userId);
+    }
+
+    @Override
+    public BigDecimal getCartTotal(Long userId) {
+        CartState state = stateFor(userId);
+        synchronized (state) {
+            return state.totalAmount();
+        }
+    }
+
+    @Override
+    public Cart applyCartOperations(Long userId, List<CartItemOperation> operations) {
+        CartState state = stateFor(userId);
+        synchronized (state) {
+            Map<Long, Integer> current = new HashMap<>();
+            state.lines.forEach((productId, line) -> current.put(productId, line.quantity));
+            ResolvedOperations resolved = resolveOperations(current, operations);
+
+            resolved.quantities().forEach((productId, quantity) -> {
+                Line line = state.lines.get(productId);
+                if (quantity == 0) {
+                    state.remove(productId);
+                } else if (line == null || line.quantity != quantity) {
+                    if (line == null) {
+                        Product product = resolved.products().get(productId);
+                        line = new Line(product, null, false);
+                        line.unitPrice = product.getPrice();
+                        state.lines.put(productId, line);
+                    }
+                    line.quantity = quantity;
+                    line.dirty = true;
+                    state.dirty = true;
+                }
+            });
+            return state.toCart();
+        }
+    }
+
+    @Override
+    public Cart mergeGuestCart(Long userId, Cart guestCart) {
+        return super.mergeGuestCart(userId, guestCart);
+    }
+
+    @Override
+    public void validateCartForCheckout(Long userId) {
+        CartState state = stateFor(userId);
+        synchronized (state) {
+            if (state.lines.isEmpty()) {
+                throw new CartEmptyException("Cannot checkout with empty cart");
+            }
+            for (Line line : state.lines.values()) {
+                Product product = productCache.getById(line.product.getId())
+                        .orElseThrow(() -> new ProductNotAvailableException(
+                                "Product '" + line.product.getName() + "' is no longer available"));
+                if (product.getStockQuantity() < line.quantity) {
+                    throw new InsufficientStockException(
+                        "Insufficient stock for product '" + product.getName() +
+                        "'. Available: " + product.getStockQuantity() +
+                        ", Required: " + line.quantity
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the cart's pending changes on the checkout's connection, and keeps any other flush
+     * of the cart out until the checkout commits or rolls back. Outside a transaction, as when
+     * stock is reserved ahead of checkout, the cart is simply flushed.
+     */
+    @Override
+    public void prepareForCheckout(Long userId) {
+        CartState state = carts.getIfPresent(userId);
+        if (state == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            flush(List.of(state), true);
+            return;
+        }
+
+        state.flushLock.lock();
+        PendingFlush pending;
+        synchronized (state) {
+            pending = state.dirty ? state.drainChanges() : null;
+            state.checkoutSnapshot = state.snapshot();
+        }
+        try {
+            if (pending != null) {
+                write(List.of(pending));
+            }
+        } catch (RuntimeException e) {
+            synchronized (state) {
+                state.restore(pending);
+                state.checkoutSnapshot = null;
+            }
+            state.flushLock.unlock();
+            throw e;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (pending != null) {
+                    synchronized (state) {
+                        state.flushed(pending);
+                    }
+                }
+            }
+
+            // Runs after every afterCommit, so onCheckedOut still sees the snapshot
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (state) {
+                    if (status != STATUS_COMMITTED && pending != null) {
+                        state.restore(pending);
+                    }
+                    state.checkoutSnapshot = null;
+                }
+                state.flushLock.unlock();
+            }
+        });
+    }
+
+    @Override
+    public void onCheckedOut(Long userId) {
+        TransactionUtils.afterCommit(() -> {
+            CartState state = carts.getIfPresent(userId);
+            if (state == null) {
+                return;
+            }
+            synchronized (state) {
+                if (state.checkoutSnapshot != null) {
+                    state.checkedOut(state.checkoutSnapshot);
+                    return;
+                }
+            }
+            // Loaded while the checkout was running, so possibly with rows it has since deleted
+            carts.invalidate(userId);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-interval:2000}")
+    public void flushDirtyCarts() {
+        // Carts being flushed by a checkout or an eviction right now are left to the next run
+        flush(carts.asMap().values(), false);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush(carts.asMap().values(), true);
+    }
+
+    private CartState stateFor(Long userId) {
+        return carts.get(userId, this::load);
+    }
+
+    private CartState load(Long userId) {
+        Cart cart = flushTransaction.execute(status -> cartRepository.findByUserIdWithItems(userId)
+                .orElseGet(() -> cartRepository.save(Cart.builder()
+                        .user(userRepository.getReferenceById(userId))
+                        .totalAmount(BigDecimal.ZERO)
+                        .totalAmountMinor(0L)
+                        .totalItems(0)
+                        .build())));
+
+        CartState state = new CartState(cart.getId());
+        for (CartItem item : cart.getCartItems()) {
+            Line line = new Line(item.getProduct(), item.getId(), true);
+            line.quantity = item.getQuantity();
+            line.unitPrice = item.getUnitPrice();
+            state.lines.put(item.getProduct().getId(), line);
+        }
+        return state;
+    }
+
+    /**
+     * Writes the given carts' pending changes in one transaction. If that fails, each cart is
+     * retried on its own; a cart that still fails keeps its changes for the next flush, and after
+     * {@link #MAX_FLUSH_FAILURES} failures in a row is dropped from memory so that it reloads from
+     * the database, losing them.
+     *
+     * @param wait whether to wait for a flush of the same cart that is under way, or skip the cart
+     */
+    private void flush(Collection<CartState> states, boolean wait) {
+        List<CartState> locked = new ArrayList<>();
+        try {
+            List<PendingFlush> pending = new ArrayList<>();
+            // Locked in cart id order, so that two flushes waiting on several carts cannot deadlock
+            for (CartState state : states.stream().sorted(Comparator.comparing(state -> state.cartId)).toList()) {
+                if (wait) {
+                    state.flushLock.lock();
+                } else if (!state.flushLock.tryLock()) {
+                    continue;
+                }
+                locked.add(state);
+                synchronized (state) {
+                    if (state.dirty) {
+                        pending.add(state.drainChanges());
+                    }
+                }
+            }
+            if (!pending.isEmpty()) {
+                writeAndSettle(pending);
+            }
+        } finally {
+            locked.forEach(state -> state.flushLock.unlock());
+        }
+    }
+
+    private void writeAndSettle(List<PendingFlush> pending) {
+        try {
+            flushTransaction.executeWithoutResult(status -> write(pending));
+            pending.forEach(this::settleFlushed);
+            log.debug("Flushed {} carts", pending.size());
+            return;
+        } catch (RuntimeException e) {
+            log.warn("Batched cart flush failed, retrying carts one by one: {}", e.getMessage());
+        }
+        for (PendingFlush flush : pending) {
+            try {
+                flushTransaction.executeWithoutResult(status -> write(List.of(flush)));
+                settleFlushed(flush);
+            } catch (RuntimeException e) {
+                settleFailed(flush, e);
+            }
+        }
+    }
+
+    private void settleFlushed(PendingFlush flush) {
+        synchronized (flush.state()) {
+            flush.state().flushed(flush);
+        }
+    }
+
+    private void settleFailed(PendingFlush flush, RuntimeException error) {
+        CartState state = flush.state();
+        int failures;
+        synchronized (state) {
+            state.restore(flush);
+            failures = ++state.flushFailures;
+        }
+        if (failures < MAX_FLUSH_FAILURES) {
+            log.warn("Failed to flush cart {}, keeping its changes for the next flush: {}",
+                    state.cartId, error.getMessage());
+        } else {
+            log.error("Failed to flush cart {} {} times, dropping its unflushed changes and reloading it: {}",
+                    state.cartId, failures, error.getMessage());
+            carts.asMap().values().removeIf(cached -> cached == state);
+        }
+    }
+
+    private void write(List<PendingFlush> pending) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> totals = new ArrayList<>();
+
+        for (PendingFlush flush : pending) {
+            Long cartId = flush.state().cartId;
+            flush.deletedProductIds().forEach(productId -> deletes.add(new Object[]{cartId, productId}));
+            for (LineChange change : flush.changes()) {
+                BigDecimal subTotal = change.unitPrice().multiply(BigDecimal.valueOf(change.quantity()));
+                if (change.insert()) {
+                    inserts.add(new Object[]{cartId, change.productId(), change.quantity(), change.unitPrice(), subTotal, now, now});
+                } else {
+                    updates.add(new Object[]{change.quantity(), change.unitPrice(), subTotal, now, cartId, change.productId()});
+                }
+            }
+            totals.add(new Object[]{flush.totalAmount(), Money.toMinor(flush.totalAmount()), flush.totalItems(), now, cartId});
+        }
+
+        batch(DELETE_ITEM_SQL, deletes);
+        batch(UPDATE_ITEM_SQL, updates);
+        batch(INSERT_ITEM_SQL, inserts);
+        batch(UPDATE_CART_SQL, totals);
+    }
+
+    private void batch(String sql, List<Object[]> args) {
+        for (int from = 0; from < args.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(sql, args.subList(from, Math.min(from + batchSize, args.size())));
+        }
+    }
+
+    private static final class CartState {
+        private final Long cartId;
+        // Held from draining changes until they commit; everything else is guarded by the monitor
+        private final ReentrantLock flushLock = new ReentrantLock();
+        private final Map<Long, Line> lines = new LinkedHashMap<>();
+        // Products whose rows exist in the database but were removed from the cart since the last flush
+        private final Set<Long> removedProductIds = new HashSet<>();
+        private boolean dirty;
+        private int flushFailures;
+        // Line quantities a running checkout is ordering
+        private Map<Line, Integer> checkoutSnapshot;
+
+        CartState(Long cartId) {
+            this.cartId = cartId;
+        }
+
+        Line findLine(Long cartItemId) {
+            if (cartItemId != null && cartItemId < 0) {
+                Line line = lines.get(-cartItemId);
+                if (line != null) {
+                    return line;
+                }
+            } else {
+                for (Line line : lines.values()) {
+                    if (cartItemId != null && cartItemId.equals(line.itemId)) {
+                        return line;
+                    }
+                }
+            }
+            throw new CartItemNotFoundException("Cart item not found with id: " + cartItemId);
+        }
+
+        void remove(Long productId) {
+            Line line = lines.remove(productId);
+            if (line != null && (line.persisted || line.inserting)) {
+                removedProductIds.add(productId);
+            }
+            dirty = true;
+        }
+
+        int totalItems() {
+            return lines.values().stream().mapToInt(line -> line.quantity).sum();
+        }
+
+        BigDecimal totalAmount() {
+            return lines.values().stream()
+                    .map(line -> line.unitPrice.multiply(BigDecimal.valueOf(line.quantity)))
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+
+        /**
+         * Takes the changes made since the last flush. Called with the flush lock held, so no
+         * earlier flush of this cart is still uncommitted.
+         */
+        PendingFlush drainChanges() {
+            List<LineChange> changes = new ArrayList<>();
+            lines.forEach((productId, line) -> {
+                if (line.dirty) {
+                    // A product removed and added back before a flush still has its committed row
+                    if (!line.persisted && removedProductIds.remove(productId)) {
+                        line.persisted = true;
+                    }
+                    line.inserting = !line.persisted;
+                    changes.add(new LineChange(productId, line, line.quantity, line.unitPrice, line.inserting));
+                    line.dirty = false;
+                }
+            });
+            PendingFlush flush = new PendingFlush(this, new ArrayList<>(removedProductIds), changes,
+                    totalAmount(), totalItems());
+            removedProductIds.clear();
+            dirty = false;
+            return flush;
+        }
+
+        void flushed(PendingFlush flush) {
+            for (LineChange change : flush.changes()) {
+                if (change.insert()) {
+                    change.line().inserting = false;
+                    change.line().persisted = true;
+                }
+            }
+            flushFailures = 0;
+        }
+
+        // Puts back changes whose write did not commit, so that the next flush writes them
+        void restore(PendingFlush flush) {
+            if (flush == null) {
+                return;
+            }
+            removedProductIds.addAll(flush.deletedProductIds());
+            for (LineChange change : flush.changes()) {
+                Line line = change.line();
+                if (change.insert()) {
+                    line.inserting = false;
+                    // The row was never written, so there is nothing to delete if the line went meanwhile
+                    removedProductIds.remove(change.productId());
+                }
+                if (lines.get(change.productId()) == line) {
+                    line.dirty = true;
+                }
+            }
+            dirty = true;
+        }
+
+        Map<Line, Integer> snapshot() {
+            Map<Line, Integer> quantities = new IdentityHashMap<>();
+            lines.values().forEach(line -> quantities.put(line, line.quantity));
+            return quantities;
+        }
+
+        /**
+         * Takes out what a committed checkout ordered. Checkout deleted every row of the cart, so
+         * whatever was added since it started is left as new lines.
+         */
+        void checkedOut(Map<Line, Integer> ordered) {
+            removedProductIds.clear();
+            lines.values().removeIf(line -> {
+                int left = line.quantity - ordered.getOrDefault(line, 0);
+                if (left <= 0) {
+                    return true;
+                }
+                line.quantity = left;
+                line.persisted = false;
+                line.inserting = false;
+                line.dirty = true;
+                return false;
+            });
+            dirty = !lines.isEmpty();
+        }
+
+        Cart toCart() {
+            Cart cart = Cart.builder().build();
+            cart.setId(cartId);
+            lines.forEach((productId, line) -> {
+                CartItem item = CartItem.builder()
+                        .cart(cart)
+                        .product(line.product)
+                        .quantity(line.quantity)
+                        .unitPrice(line.unitPrice)
+                        .subTotal(line.unitPrice.multiply(BigDecimal.valueOf(line.quantity)))
+                        .build();
+                item.setId(line.itemId != null ? line.itemId : -productId);
+                cart.getCartItems().add(item);
+            });
+            cart.updateTotals();
+            return cart;
+        }
+    }
+
+    private static final class Line {
+        private final Product product;
+        private final Long itemId;
+        // The row is committed, or being written by the flush under way
+        private boolean persisted;
+        private boolean inserting;
+        private boolean dirty;
+        private int quantity;
+        private BigDecimal unitPrice;
+
+        Line(Product product, Long itemId, boolean persisted) {
+            this.product = product;
+            this.itemId = itemId;
+            this.persisted = persisted;
+        }
+    }
+
+    private record LineChange(Long productId, Line line, int quantity, BigDecimal unitPrice, boolean insert) {
+    }
+
+    private record PendingFlush(CartState state, List<Long> deletedProductIds, List<LineChange> changes,
+                                BigDecimal totalAmount, int totalItems) {
+    }
+}
@@ -0,0 +1,176 @@
+package com.ecommerce.backend.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe HyperLogLog distinct counter over long values (Flajolet et al., with linear counting
+ * for small cardinalities).
+ * <p>
+ * A sketch of precision {@code p} has {@code 2^p} one-byte registers, packed eight to a word, and
+ * estimates with a standard error of about {@code 1.04 / sqrt(2^p)}: 1.6% at p = 12 in 4 KB. Adds
+ * update a register with CAS only when they raise it, which after the first few thousand values is
+ * rare, so concurrent adds almost never write. Sketches merge by taking the larger register, so a
+ * union can be taken over days or nodes any number of times without double counting.
+ */
+public final class HyperLogLog {
+
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 16;
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final int REGISTERS_PER_WORD = 8;
+
+    private final int precision;
+    private final int registerCount;
+    private final AtomicLongArray words;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION);
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+        this.words = new AtomicLongArray(registerCount / REGISTERS_PER_WORD);
+    }
+
+    /**
+     * Adds a value, returning whether the sketch changed.
+     */
+    public boolean add(long value) {
+        long hash = mix(value);
+        int index = (int) (hash >>> (64 - precision));
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << precision) + 1, 64 - precision + 1);
+        return raise(index, rank);
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < registerCount; i++) {
+            int register = get(i);
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double m = registerCount;
+        double estimate = alpha(registerCount) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log(m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Adds everything counted by {@code other}. A sketch of higher precision is folded down to this
+     * one's first; one of lower precision cannot be merged in.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision < precision) {
+            throw new IllegalArgumentException("Cannot merge a sketch of precision " + other.precision
+                    + " into one of precision " + precision);
+        }
+        HyperLogLog source = other.precision == precision ? other : other.fold(precision);
+        for (int i = 0; i < registerCount; i++) {
+            raise(i, source.get(i));
+        }
+    }
+
+    /**
+     * The same counts at a lower precision, as if every value had been added to a sketch of that
+     * precision.
+     */
+    public HyperLogLog fold(int targetPrecision) {
+        if (targetPrecision > precision) {
+            throw new IllegalArgumentException("Cannot fold to a higher precision");
+        }
+        HyperLogLog folded = new HyperLogLog(targetPrecision);
+        int dropped = precision - targetPrecision;
+        for (int i = 0; i < registerCount; i++) {
+            int register = get(i);
+            if (register == 0) {
+                continue;
+            }
+            // The index bits that no longer select a register now lead the remaining hash bits
+            int low = i & ((1 << dropped) - 1);
+            int rank = low != 0 ? Integer.numberOfLeadingZeros(low) - (32 - dropped) + 1 : dropped + register;
+            folded.raise(i >>> dropped, rank);
+        }
+        return folded;
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    /**
+     * Version byte, precision byte, then one byte per register.
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[2 + registerCount];
+        bytes[0] = FORMAT_VERSION;
+        bytes[1] = (byte) precision;
+        for (int i = 0; i < registerCount; i++) {
+            bytes[2 + i] = (byte) get(i);
+        }
+        return bytes;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes.length < 2 || bytes[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported sketch format");
+        }
+        HyperLogLog sketch = new HyperLogLog(bytes[1]);
+        if (bytes.length != 2 + sketch.registerCount) {
+            throw new IllegalArgumentException("Sketch length does not match its precision");
+        }
+        for (int i = 0; i < sketch.registerCount; i++) {
+            sketch.raise(i, bytes[2 + i]);
+        }
+        return sketch;
+    }
+
+    private int get(int index) {
+        long word = words.get(index / REGISTERS_PER_WORD);
+        return (int) ((word >>> shift(index)) & 0xFF);
+    }
+
+    private boolean raise(int index, int rank) {
+        int wordIndex = index / REGISTERS_PER_WORD;
+        int shift = shift(index);
+        while (true) {
+            long word = words.get(wordIndex);
+            if (((word >>> shift) & 0xFF) >= rank) {
+                return false;
+            }
+            long updated = (word & ~(0xFFL << shift)) | ((long) rank << shift);
+            if (words.compareAndSet(wordIndex, word, updated)) {
+                return true;
+            }
+        }
+    }
+
+    private static int shift(int index) {
+        return (index % REGISTERS_PER_WORD) * 8;
+    }
+
+    private static double alpha(int m) {
+        return switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+    }
+
+    // MurmurHash3 finalizer: spreads sequential ids over all 64 bits
+    private static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
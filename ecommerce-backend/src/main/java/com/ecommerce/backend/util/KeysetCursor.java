@@ -0,0 +1,43 @@
+package com.ecommerce.backend.util;
+
+import com.ecommerce.backend.exception.CustomExceptions.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset (seek) pagination cursor: the sort field, its direction and the
+ * (sort value, id) pair of the last row returned. Clients pass it back unchanged.
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String sortField;
+    private final boolean descending;
+    private final String sortValue;
+    private final Long id;
+
+    public String encode() {
+        String raw = sortField + SEPARATOR + (descending ? "desc" : "asc") + SEPARATOR
+                + (sortValue != null ? sortValue : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 4) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return new KeysetCursor(parts[0], "desc".equals(parts[1]), parts[2], Long.valueOf(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
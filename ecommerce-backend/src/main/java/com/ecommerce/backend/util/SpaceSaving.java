@@ -0,0 +1,130 @@
+package com.ecommerce.backend.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy-hitters summary over long keys with weighted updates (Metwally et al.).
+ * <p>
+ * Holds at most {@code capacity} counters. A key that is not tracked while the summary is full
+ * takes over the smallest counter, inheriting its count as error. Every tracked count is an upper
+ * bound on the key's true weight and overestimates it by at most its error, which never exceeds
+ * {@code total / capacity}; any key heavier than that is guaranteed to be tracked. Counters sit in
+ * an indexed min-heap, so an update is O(log capacity).
+ * <p>
+ * Not thread-safe.
+ */
+public final class SpaceSaving {
+
+    private final int capacity;
+    private final long[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<Long, Integer> positions;
+    private int size;
+    private long total;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.keys = new long[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.positions = new HashMap<>(capacity * 2);
+    }
+
+    public void add(long key, long weight) {
+        if (weight <= 0) {
+            return;
+        }
+        total += weight;
+        Integer position = positions.get(key);
+        if (position != null) {
+            counts[position] += weight;
+            siftDown(position);
+        } else if (size < capacity) {
+            keys[size] = key;
+            counts[size] = weight;
+            errors[size] = 0;
+            positions.put(key, size);
+            siftUp(size++);
+        } else {
+            // Evict the smallest counter; its count becomes the newcomer's possible overestimate
+            positions.remove(keys[0]);
+            keys[0] = key;
+            errors[0] = counts[0];
+            counts[0] += weight;
+            positions.put(key, 0);
+            siftDown(0);
+        }
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * The smallest tracked count, which bounds the weight of any key that is not tracked; 0 while
+     * the summary is not full.
+     */
+    public long minCount() {
+        return isFull() ? counts[0] : 0;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public void forEach(CounterVisitor visitor) {
+        for (int i = 0; i < size; i++) {
+            visitor.visit(keys[i], counts[i], errors[i]);
+        }
+    }
+
+    @FunctionalInterface
+    public interface CounterVisitor {
+        void visit(long key, long count, long error);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[parent] <= counts[i]) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left + 1 < size && counts[left + 1] < counts[left] ? left + 1 : left;
+            if (counts[i] <= counts[smallest]) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        long count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+        long error = errors[a];
+        errors[a] = errors[b];
+        errors[b] = error;
+        positions.put(keys[a], a);
+        positions.put(keys[b], b);
+    }
+}
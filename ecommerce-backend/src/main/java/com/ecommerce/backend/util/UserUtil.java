@@ -2,6 +2,7 @@ package com.ecommerce.backend.util;
 
 import com.ecommerce.backend.entity.User;
 import com.ecommerce.backend.repository.UserRepository;
+import com.ecommerce.backend.security.JwtUserPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
@@ -26,6 +27,8 @@ public class UserUtil {
             if (userDetails instanceof User) {
                 User user = (User) userDetails;
                 return user.getId();
+            } else if (userDetails instanceof JwtUserPrincipal) {
+                return ((JwtUserPrincipal) userDetails).getId();
             } else {
                 // Fallback: look up user by username
                 String username = userDetails.getUsername();
@@ -50,6 +53,10 @@ public class UserUtil {
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
             if (userDetails instanceof User) {
                 return (User) userDetails;
+            } else if (userDetails instanceof JwtUserPrincipal) {
+                Long userId = ((JwtUserPrincipal) userDetails).getId();
+                return userRepository.findById(userId)
+                    .orElseThrow(() -> new IllegalStateException("User not found: " + userId));
             } else {
                 // Fallback: look up user by username
                 String username = userDetails.getUsername();
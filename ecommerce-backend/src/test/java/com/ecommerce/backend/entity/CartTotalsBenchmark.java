@@ -0,0 +1,101 @@
+package com.ecommerce.backend.entity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one quantity change on a cart of 10, 100 and 1000 lines: totals recomputed from every
+ * item, as {@code Cart.updateTotals()} did on each edit before, against the delta the cart now
+ * applies for the changed item only. {@link #reconcile} is the full pass checkout still makes.
+ * <p>
+ * JMH forks its own JVM, so run it with {@code mvn test-compile exec:exec -Dexec.classpathScope=test
+ * -Dexec.executable=java -Dexec.args="-cp %classpath com.ecommerce.backend.entity.CartTotalsBenchmark"}.
+ * For allocation per edit run {@code org.openjdk.jmh.Main CartTotalsBenchmark -prof gc} instead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CartTotalsBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int lines;
+
+    private Cart cart;
+    private CartItem[] items;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createCart() {
+        cart = new Cart();
+        cart.resetTotals();
+        items = new CartItem[lines];
+        for (int i = 0; i < lines; i++) {
+            CartItem item = CartItem.builder()
+                    .quantity(1 + i % 3)
+                    .unitPrice(new BigDecimal("9.99").add(BigDecimal.valueOf(i, 2)))
+                    .build();
+            cart.addCartItem(item);
+            items[i] = item;
+        }
+    }
+
+    // The per-edit recomputation the cart used to make
+    @Benchmark
+    public void recompute(Blackhole blackhole) {
+        CartItem item = nextItem();
+        item.updateQuantity(item.getQuantity() % 5 + 1);
+        List<CartItem> cartItems = cart.getCartItems();
+        blackhole.consume(cartItems.stream()
+                .mapToInt(CartItem::getQuantity)
+                .sum());
+        blackhole.consume(cartItems.stream()
+                .map(CartItem::getSubTotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+    }
+
+    @Benchmark
+    public long delta() {
+        CartItem item = nextItem();
+        int previous = item.getQuantity();
+        item.updateQuantity(previous % 5 + 1);
+        cart.onItemQuantityChanged(item, previous);
+        return cart.getTotalAmountMinor();
+    }
+
+    @Benchmark
+    public long reconcile() {
+        cart.updateTotals();
+        return cart.getTotalAmountMinor();
+    }
+
+    private CartItem nextItem() {
+        CartItem item = items[next];
+        next = next + 1 == items.length ? 0 : next + 1;
+        return item;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CartTotalsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,141 @@
+package com.ecommerce.backend.order;
+
+import com.ecommerce.backend.order.OrderExporter.Filter;
+import com.ecommerce.backend.order.OrderExporter.Format;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.repository.UserRepository;
+import com.ecommerce.backend.support.PostgresIntegrationTest;
+import com.ecommerce.backend.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exact export output for a day holding two orders, one with two items and one without.
+ */
+class OrderExporterTest extends PostgresIntegrationTest {
+
+    private static final String ORDER_HEADER = "order_id,order_number,user_id,status,order_date,total_items," +
+            "total_amount,payment_method,payment_status,tracking_number,shipped_date,delivered_date," +
+            "shipping_city,shipping_state,shipping_postal_code,shipping_country";
+
+    private static final String ITEM_HEADER = "item_id,product_id,product_name,product_sku,quantity,unit_price,sub_total";
+
+    @Autowired
+    private OrderExporter orderExporter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // A day no other test puts orders on, so the export holds only the orders below
+    private final LocalDate day = LocalDate.of(1990, 1, 1).plusDays(ThreadLocalRandom.current().nextInt(3650));
+    private final String key = UUID.randomUUID().toString().substring(0, 8);
+
+    private long userId;
+    private long productId;
+    private long shippedId;
+    private long pendingId;
+    private long firstItemId;
+    private long secondItemId;
+
+    @BeforeEach
+    void createOrders() {
+        userId = userRepository.save(TestData.user()).getId();
+        productId = productRepository.save(TestData.product(10)).getId();
+
+        shippedId = insertOrder("EXPORT-" + key + "-1", "DELIVERED", "09:00", 3, "29.97", "CARD", "PAID",
+                "TRK \"1\"", "Springfield, IL", "=HYPERLINK(\"http://example.com\")");
+        firstItemId = insertItem(shippedId, "+Widget", 2, "9.99");
+        secondItemId = insertItem(shippedId, "Gadget", 1, "9.99");
+        pendingId = insertOrder("EXPORT-" + key + "-2", "PENDING", "10:30", 0, "0.00", null, null,
+                null, "Shelbyville", "IL");
+    }
+
+    @Test
+    void csvRepeatsTheOrderOnEachItemRowAndEscapesText() {
+        String shipped = shippedId + ",EXPORT-" + key + "-1," + userId + ",DELIVERED," + day + "T09:00,3,29.97,CARD,PAID," +
+                "\"TRK \"\"1\"\"\",,,\"Springfield, IL\",\"'=HYPERLINK(\"\"http://example.com\"\")\",62701,US";
+        String pending = pendingId + ",EXPORT-" + key + "-2," + userId + ",PENDING," + day + "T10:30,0,0.00,,,,,," +
+                "Shelbyville,IL,62701,US";
+
+        assertThat(export(Format.CSV, true)).isEqualTo(
+                ORDER_HEADER + "," + ITEM_HEADER + "\r\n" +
+                shipped + "," + firstItemId + "," + productId + ",'+Widget,SKU-" + key + ",2,9.99,19.98\r\n" +
+                shipped + "," + secondItemId + "," + productId + ",Gadget,SKU-" + key + ",1,9.99,9.99\r\n" +
+                pending + ",,,,,,,\r\n");
+        assertThat(export(Format.CSV, false)).isEqualTo(
+                ORDER_HEADER + "\r\n" +
+                shipped + "\r\n" +
+                pending + "\r\n");
+    }
+
+    @Test
+    void ndjsonWritesOneOrderPerLineWithItsItems() {
+        String shipped = "{\"order_id\":" + shippedId + ",\"order_number\":\"EXPORT-" + key + "-1\"," +
+                "\"user_id\":" + userId + ",\"status\":\"DELIVERED\",\"order_date\":\"" + day + "T09:00\"," +
+                "\"total_items\":3,\"total_amount\":29.97,\"payment_method\":\"CARD\",\"payment_status\":\"PAID\"," +
+                "\"tracking_number\":\"TRK \\\"1\\\"\",\"shipped_date\":null,\"delivered_date\":null," +
+                "\"shipping_city\":\"Springfield, IL\"," +
+                "\"shipping_state\":\"=HYPERLINK(\\\"http://example.com\\\")\"," +
+                "\"shipping_postal_code\":\"62701\",\"shipping_country\":\"US\"";
+        String pending = "{\"order_id\":" + pendingId + ",\"order_number\":\"EXPORT-" + key + "-2\"," +
+                "\"user_id\":" + userId + ",\"status\":\"PENDING\",\"order_date\":\"" + day + "T10:30\"," +
+                "\"total_items\":0,\"total_amount\":0.00,\"payment_method\":null,\"payment_status\":null," +
+                "\"tracking_number\":null,\"shipped_date\":null,\"delivered_date\":null," +
+                "\"shipping_city\":\"Shelbyville\",\"shipping_state\":\"IL\"," +
+                "\"shipping_postal_code\":\"62701\",\"shipping_country\":\"US\"";
+        String items = "\"items\":[" +
+                "{\"item_id\":" + firstItemId + ",\"product_id\":" + productId + ",\"product_name\":\"+Widget\"," +
+                "\"product_sku\":\"SKU-" + key + "\",\"quantity\":2,\"unit_price\":9.99,\"sub_total\":19.98}," +
+                "{\"item_id\":" + secondItemId + ",\"product_id\":" + productId + ",\"product_name\":\"Gadget\"," +
+                "\"product_sku\":\"SKU-" + key + "\",\"quantity\":1,\"unit_price\":9.99,\"sub_total\":9.99}]";
+
+        assertThat(export(Format.NDJSON, true)).isEqualTo(
+                shipped + "," + items + "}\n" +
+                pending + ",\"items\":[]}\n");
+        assertThat(export(Format.NDJSON, false)).isEqualTo(
+                shipped + "}\n" +
+                pending + "}\n");
+    }
+
+    private String export(Format format, boolean includeItems) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long orders = orderExporter.export(new Filter(null, day, day), format, includeItems, out);
+        assertThat(orders).isEqualTo(2);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private long insertOrder(String orderNumber, String status, String time, int totalItems, String totalAmount,
+                             String paymentMethod, String paymentStatus, String trackingNumber,
+                             String city, String state) {
+        return jdbcTemplate.queryForObject("INSERT INTO orders (order_number, user_id, status, order_date, " +
+                "total_items, total_amount, payment_method, payment_status, tracking_number, " +
+                "shipping_address_line1, shipping_city, shipping_state, shipping_postal_code, shipping_country, " +
+                "version, created_at, updated_at) VALUES (?, ?, ?, CAST(? AS timestamp), ?, CAST(? AS numeric), " +
+                "?, ?, ?, '1 Test St', ?, ?, '62701', 'US', 0, now(), now()) RETURNING id", Long.class,
+                orderNumber, userId, status, day + " " + time, totalItems, totalAmount,
+                paymentMethod, paymentStatus, trackingNumber, city, state);
+    }
+
+    private long insertItem(long orderId, String productName, int quantity, String unitPrice) {
+        return jdbcTemplate.queryForObject("INSERT INTO order_items (order_id, product_id, product_name, " +
+                "product_sku, quantity, unit_price, sub_total, version, created_at, updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, CAST(? AS numeric), CAST(? AS numeric) * ?, 0, now(), now()) RETURNING id",
+                Long.class, orderId, productId, productName, "SKU-" + key, quantity, unitPrice, unitPrice, quantity);
+    }
+}
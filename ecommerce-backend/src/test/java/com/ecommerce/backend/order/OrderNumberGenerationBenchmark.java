@@ -0,0 +1,62 @@
+package com.ecommerce.backend.order;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order numbers generated per second, snowflake against the random scheme, on one thread and on
+ * eight sharing a generator as concurrent checkouts do.
+ * <p>
+ * JMH forks its own JVM, so run it with {@code mvn test-compile exec:exec -Dexec.classpathScope=test
+ * -Dexec.executable=java -Dexec.args="-cp %classpath com.ecommerce.backend.order.OrderNumberGenerationBenchmark"}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderNumberGenerationBenchmark {
+
+    private final SnowflakeOrderNumberGenerator snowflake = new SnowflakeOrderNumberGenerator(1L);
+    private final RandomOrderNumberGenerator random = new RandomOrderNumberGenerator();
+
+    @Benchmark
+    public String snowflake() {
+        return snowflake.nextOrderNumber();
+    }
+
+    @Benchmark
+    public String random() {
+        return random.nextOrderNumber();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String snowflakeEightThreads() {
+        return snowflake.nextOrderNumber();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String randomEightThreads() {
+        return random.nextOrderNumber();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OrderNumberGenerationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
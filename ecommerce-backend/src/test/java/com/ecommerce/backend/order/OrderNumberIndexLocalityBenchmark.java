@@ -0,0 +1,93 @@
+package com.ecommerce.backend.order;
+
+import com.ecommerce.backend.support.TestDatabase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Inserts the same number of order numbers from each scheme into a table with a unique index, as
+ * on {@code orders.order_number}, and reports insert rate, index size and collisions, plus leaf
+ * density and fragmentation when the {@code pgstattuple} extension can be created.
+ * <p>
+ * Snowflake numbers always go to the right edge of the index, so its leaf pages fill up and stay
+ * hot. Random numbers land on any leaf, splitting pages all over the index: leaves are left part
+ * empty and out of order, and once the index no longer fits in memory most inserts read a page
+ * from disk.
+ * <p>
+ * Runs against {@link TestDatabase}: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.ecommerce.backend.order.OrderNumberIndexLocalityBenchmark [-Dexec.args=rows]}.
+ */
+public class OrderNumberIndexLocalityBenchmark {
+
+    private static final int BATCH = 1000;
+
+    public static void main(String[] args) throws SQLException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        try (Connection connection = TestDatabase.connect()) {
+            boolean pgstattuple = createPgstattuple(connection);
+            run(connection, "snowflake", new SnowflakeOrderNumberGenerator(1L), rows, pgstattuple);
+            run(connection, "random", new RandomOrderNumberGenerator(), rows, pgstattuple);
+        }
+    }
+
+    private static boolean createPgstattuple(Connection connection) {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE EXTENSION IF NOT EXISTS pgstattuple");
+            return true;
+        } catch (SQLException e) {
+            System.out.println("pgstattuple is not available, leaf density is not reported: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void run(Connection connection, String name, OrderNumberGenerator generator, int rows,
+                            boolean pgstattuple) throws SQLException {
+        String table = "order_number_bench_" + name;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            statement.execute("CREATE TABLE " + table + " (id BIGSERIAL PRIMARY KEY, order_number VARCHAR(50) NOT NULL)");
+            statement.execute("CREATE UNIQUE INDEX " + table + "_number ON " + table + " (order_number)");
+        }
+
+        long collisions = 0;
+        long started = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO " + table + " (order_number) VALUES (?) ON CONFLICT (order_number) DO NOTHING")) {
+            for (int i = 0; i < rows; i++) {
+                insert.setString(1, generator.nextOrderNumber());
+                insert.addBatch();
+                if ((i + 1) % BATCH == 0 || i == rows - 1) {
+                    for (int count : insert.executeBatch()) {
+                        collisions += count == 0 ? 1 : 0;
+                    }
+                }
+            }
+        }
+        long elapsedMs = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT pg_relation_size('" + table + "_number')")) {
+            rs.next();
+            long indexBytes = rs.getLong(1);
+            System.out.printf("%-9s %,d rows in %,d ms (%,d rows/s), index %,d KB (%.1f bytes per row), %,d collisions%n",
+                    name, rows, elapsedMs, rows * 1000L / elapsedMs, indexBytes / 1024,
+                    (double) indexBytes / (rows - collisions), collisions);
+        }
+        if (pgstattuple) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(
+                         "SELECT avg_leaf_density, leaf_fragmentation FROM pgstatindex('" + table + "_number')")) {
+                rs.next();
+                System.out.printf("%-9s leaf density %.1f%%, leaf fragmentation %.1f%%%n",
+                        name, rs.getDouble(1), rs.getDouble(2));
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE " + table);
+        }
+    }
+}
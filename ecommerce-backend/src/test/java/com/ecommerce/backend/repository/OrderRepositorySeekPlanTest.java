@@ -0,0 +1,66 @@
+package com.ecommerce.backend.repository;
+
+import com.ecommerce.backend.support.PostgresIntegrationTest;
+import com.ecommerce.backend.support.QueryPlans;
+import com.ecommerce.backend.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A page of order history deep in a long history seeks to its cursor in the (user, date, id)
+ * index instead of reading the user's newer orders first.
+ */
+@TestPropertySource(properties = QueryPlans.STATEMENT_INSPECTOR)
+class OrderRepositorySeekPlanTest extends PostgresIntegrationTest {
+
+    private static final int USERS = 10;
+    private static final int ORDERS_PER_USER = 2_000;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void historySeekIsAnIndexCondition() {
+        Long userId = null;
+        for (int i = 0; i < USERS; i++) {
+            userId = userRepository.save(TestData.user()).getId();
+            jdbcTemplate.update("INSERT INTO orders (order_number, user_id, status, order_date, total_amount, " +
+                    "total_items, shipping_address_line1, shipping_city, shipping_state, shipping_postal_code, " +
+                    "shipping_country, version, created_at, updated_at) " +
+                    "SELECT 'SEEK-' || ? || '-' || g, ?, 'DELIVERED', now() - g * interval '1 minute', 10, 1, " +
+                    "'1 Test St', 'Springfield', 'IL', '62701', 'US', 0, now(), now() FROM generate_series(1, ?) g",
+                    userId, userId, ORDERS_PER_USER);
+        }
+        jdbcTemplate.execute("ANALYZE orders");
+        // Halfway down the last user's history
+        Map<String, Object> cursor = jdbcTemplate.queryForMap("SELECT order_date, id FROM orders WHERE user_id = ? " +
+                "ORDER BY order_date DESC, id DESC OFFSET ? LIMIT 1", userId, ORDERS_PER_USER / 2);
+        LocalDateTime orderDate = ((Timestamp) cursor.get("order_date")).toLocalDateTime();
+        Long id = ((Number) cursor.get("id")).longValue();
+        Long seekUserId = userId;
+
+        String sql = QueryPlans.sqlOf(() -> orderRepository.findHistoryAfter(seekUserId, orderDate, id,
+                PageRequest.of(0, 20)));
+        String plan = QueryPlans.explain(jdbcTemplate, sql,
+                String.valueOf(seekUserId), "TIMESTAMP '" + orderDate + "'", String.valueOf(id), "0", "21");
+
+        assertThat(plan).contains("using idx_order_user_date");
+        assertThat(plan).containsPattern("Index Cond: .*ROW\\(");
+        assertThat(plan).doesNotContain("Filter:");
+    }
+}
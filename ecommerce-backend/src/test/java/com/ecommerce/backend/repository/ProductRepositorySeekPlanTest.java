@@ -0,0 +1,75 @@
+package com.ecommerce.backend.repository;
+
+import com.ecommerce.backend.support.PostgresIntegrationTest;
+import com.ecommerce.backend.support.QueryPlans;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The cursor listing seeks straight to the row after the cursor: the (sort key, id) comparison is
+ * an index condition, so a deep page reads the same index range as the first one.
+ */
+@TestPropertySource(properties = QueryPlans.STATEMENT_INSPECTOR)
+class ProductRepositorySeekPlanTest extends PostgresIntegrationTest {
+
+    private static final int PRODUCTS = 20_000;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seedProducts() {
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products WHERE sku LIKE 'SEEK-%'", Integer.class);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = existing != null ? existing : 0; i < PRODUCTS; i++) {
+            rows.add(new Object[]{"Seek product " + i, "SEEK-" + i, BigDecimal.valueOf(i % 1000, 1)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO products (name, sku, price, category, stock_quantity, active, " +
+                "version, created_at, updated_at) VALUES (?, ?, ?, 'Seek', 100, true, 0, now(), now())", rows);
+        jdbcTemplate.execute("ANALYZE products");
+    }
+
+    @Test
+    void priceSeekIsAnIndexCondition() {
+        String ascending = QueryPlans.sqlOf(() -> productRepository.findActiveAfterPriceAsc(
+                new BigDecimal("50.0"), 10_000L, PageRequest.of(0, 20)));
+        String descending = QueryPlans.sqlOf(() -> productRepository.findActiveAfterPriceDesc(
+                new BigDecimal("50.0"), 10_000L, PageRequest.of(0, 20)));
+
+        assertSeeksOn("idx_product_active_price", QueryPlans.explain(jdbcTemplate, ascending, "50.0", "10000", "0", "21"));
+        assertSeeksOn("idx_product_active_price", QueryPlans.explain(jdbcTemplate, descending, "50.0", "10000", "0", "21"));
+    }
+
+    @Test
+    void createdAtSeekIsAnIndexCondition() {
+        LocalDateTime createdAt = LocalDateTime.now().minusMinutes(1);
+        String ascending = QueryPlans.sqlOf(() -> productRepository.findActiveAfterCreatedAtAsc(
+                createdAt, 10_000L, PageRequest.of(0, 20)));
+        String descending = QueryPlans.sqlOf(() -> productRepository.findActiveAfterCreatedAtDesc(
+                createdAt, 10_000L, PageRequest.of(0, 20)));
+        String timestamp = "TIMESTAMP '" + createdAt + "'";
+
+        assertSeeksOn("idx_product_active_created", QueryPlans.explain(jdbcTemplate, ascending, timestamp, "10000", "0", "21"));
+        assertSeeksOn("idx_product_active_created", QueryPlans.explain(jdbcTemplate, descending, timestamp, "10000", "0", "21"));
+    }
+
+    private static void assertSeeksOn(String index, String plan) {
+        assertThat(plan).contains("using " + index);
+        assertThat(plan).containsPattern("Index Cond: .*ROW\\(");
+        assertThat(plan).doesNotContain("Filter:");
+    }
+}
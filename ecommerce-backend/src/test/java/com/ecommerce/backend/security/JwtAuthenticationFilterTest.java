@@ -0,0 +1,94 @@
+package com.ecommerce.backend.security;
+
+import com.ecommerce.backend.entity.User;
+import com.ecommerce.backend.repository.UserRepository;
+import com.ecommerce.backend.support.PostgresIntegrationTest;
+import com.ecommerce.backend.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Which bearer tokens the filter turns into an authenticated request.
+ */
+class JwtAuthenticationFilterTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private JwtAuthenticationFilter filter;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserSecurityStateService userSecurityStateService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void createUser() {
+        user = userRepository.save(TestData.user());
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void accessTokenAuthenticates() throws Exception {
+        assertThat(authenticate(jwtUtil.generateToken(user))).isNotNull();
+    }
+
+    @Test
+    void refreshTokenDoesNotAuthenticate() throws Exception {
+        String refreshToken = refreshTokenService.issue(user).token();
+
+        assertThat(authenticate(refreshToken)).isNull();
+    }
+
+    @Test
+    void tokenWithoutPrincipalClaimsAuthenticatesAnActiveUser() throws Exception {
+        assertThat(authenticate(jwtUtil.generateTokenFromUsername(user.getUsername()))).isNotNull();
+    }
+
+    @Test
+    void tokenWithoutPrincipalClaimsIsRefusedForADisabledUser() throws Exception {
+        user.setEnabled(false);
+        userRepository.save(user);
+        userSecurityStateService.evict(user.getId());
+
+        assertThat(authenticate(jwtUtil.generateTokenFromUsername(user.getUsername()))).isNull();
+    }
+
+    @Test
+    void tokenWithoutPrincipalClaimsIsRefusedOnceTokensAreRevoked() throws Exception {
+        user.setSecurityVersion(1L);
+        userRepository.save(user);
+        userSecurityStateService.evict(user.getId());
+
+        assertThat(authenticate(jwtUtil.generateTokenFromUsername(user.getUsername()))).isNull();
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/cart");
+        request.setContextPath("/api/v1");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,79 @@
+package com.ecommerce.backend.security;
+
+import com.ecommerce.backend.dto.AuthResponse;
+import com.ecommerce.backend.entity.User;
+import com.ecommerce.backend.exception.CustomExceptions.InvalidTokenException;
+import com.ecommerce.backend.repository.UserRepository;
+import com.ecommerce.backend.service.AuthService;
+import com.ecommerce.backend.support.PostgresIntegrationTest;
+import com.ecommerce.backend.support.TestData;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Refresh tokens issued before rotation families, signed with the HS512 secret as they were then.
+ */
+@TestPropertySource(properties = {
+        "jwt.keys.accept-legacy-hmac=true",
+        "jwt.secret=refreshTokenMigrationTestSecretThatIsOnlyUsedHereAndIsLongEnoughForTheHS512Algorithm"
+})
+class RefreshTokenMigrationTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    private User user;
+
+    @BeforeEach
+    void createUser() {
+        user = userRepository.save(TestData.user());
+    }
+
+    @Test
+    void tokenWithoutIdIsRefusedEveryTime() {
+        String token = legacyRefreshToken().compact();
+
+        assertThatThrownBy(() -> authService.refreshToken(token)).isInstanceOf(InvalidTokenException.class);
+        assertThatThrownBy(() -> authService.refreshToken(token)).isInstanceOf(InvalidTokenException.class);
+    }
+
+    @Test
+    void tokenWithIdIsExchangedOnceIntoAFamily() {
+        String token = legacyRefreshToken().setId(UUID.randomUUID().toString()).compact();
+
+        AuthResponse exchanged = authService.refreshToken(token);
+
+        assertThatThrownBy(() -> authService.refreshToken(token)).isInstanceOf(InvalidTokenException.class);
+        assertThat(authService.refreshToken(exchanged.getRefreshToken()).getRefreshToken()).isNotBlank();
+    }
+
+    private JwtBuilder legacyRefreshToken() {
+        Date now = new Date();
+        return Jwts.builder()
+                .setClaims(Map.of("type", "refresh"))
+                .setSubject(user.getUsername())
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + 3_600_000))
+                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()), SignatureAlgorithm.HS512);
+    }
+}
@@ -0,0 +1,128 @@
+package com.ecommerce.backend.security;
+
+import com.ecommerce.backend.dto.AuthResponse;
+import com.ecommerce.backend.entity.User;
+import com.ecommerce.backend.exception.CustomExceptions.InvalidTokenException;
+import com.ecommerce.backend.repository.RefreshTokenFamilyRepository;
+import com.ecommerce.backend.repository.UserRepository;
+import com.ecommerce.backend.service.AuthService;
+import com.ecommerce.backend.support.PostgresIntegrationTest;
+import com.ecommerce.backend.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Refresh throughput for one user rotating many sessions at once, and the outcome of a client
+ * racing itself on one session, against a real database.
+ */
+class RefreshTokenRotationStressTest extends PostgresIntegrationTest {
+
+    private static final int SESSIONS = 16;
+    private static final int ROTATIONS = 200;
+    private static final int RACERS = 8;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenFamilyRepository familyRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void createUser() {
+        user = userRepository.save(TestData.user());
+    }
+
+    @Test
+    void concurrentRotationForOneUser() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(SESSIONS);
+        List<Future<?>> sessions = new ArrayList<>();
+        for (int i = 0; i < SESSIONS; i++) {
+            String first = refreshTokenService.issue(user).token();
+            sessions.add(executor.submit(() -> {
+                start.await();
+                String token = first;
+                for (int rotation = 0; rotation < ROTATIONS; rotation++) {
+                    token = authService.refreshToken(token).getRefreshToken();
+                }
+                return null;
+            }));
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> session : sessions) {
+            session.get(2, TimeUnit.MINUTES);
+        }
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        executor.shutdown();
+
+        int rotations = SESSIONS * ROTATIONS;
+        System.out.printf("%d sessions of one user: %d rotations in %d ms (%.0f refreshes/s)%n",
+                SESSIONS, rotations, elapsedMs, rotations * 1000.0 / elapsedMs);
+
+        // Rotation updates the family row in place
+        Integer families = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM refresh_token_families WHERE user_id = ? AND revoked_at IS NULL",
+                Integer.class, user.getId());
+        assertThat(families).isEqualTo(SESSIONS);
+    }
+
+    @Test
+    void racingRefreshesOfOneSessionLetOneThroughAndKeepTheSession() throws Exception {
+        RefreshTokenService.IssuedRefreshToken issued = refreshTokenService.issue(user);
+        AtomicInteger refused = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(RACERS);
+        List<Future<AuthResponse>> racers = new ArrayList<>();
+        for (int i = 0; i < RACERS; i++) {
+            racers.add(executor.submit(() -> {
+                start.await();
+                try {
+                    return authService.refreshToken(issued.token());
+                } catch (InvalidTokenException e) {
+                    refused.incrementAndGet();
+                    return null;
+                }
+            }));
+        }
+        start.countDown();
+        List<AuthResponse> winners = new ArrayList<>();
+        for (Future<AuthResponse> racer : racers) {
+            AuthResponse response = racer.get(1, TimeUnit.MINUTES);
+            if (response != null) {
+                winners.add(response);
+            }
+        }
+        executor.shutdown();
+
+        assertThat(winners).hasSize(1);
+        assertThat(refused.get()).isEqualTo(RACERS - 1);
+        assertThat(familyRepository.findById(issued.familyId()).orElseThrow().getRevokedAt()).isNull();
+        assertThat(authService.refreshToken(winners.get(0).getRefreshToken()).getRefreshToken()).isNotBlank();
+    }
+}
@@ -0,0 +1,180 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.dto.AuthLoginRequest;
+import com.ecommerce.backend.dto.AuthResponse;
+import com.ecommerce.backend.entity.User;
+import com.ecommerce.backend.exception.CustomExceptions.UnauthorizedException;
+import com.ecommerce.backend.repository.UserRepository;
+import com.ecommerce.backend.support.PostgresIntegrationTest;
+import com.ecommerce.backend.support.TestData;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Login checks the password outside any transaction and outside open session in view, so a request
+ * waiting for a hashing slot does not hold a database connection meanwhile.
+ */
+@AutoConfigureMockMvc
+@Import(AuthServiceLoginTest.Config.class)
+class AuthServiceLoginTest extends PostgresIntegrationTest {
+
+    // Whether the calling thread was in a transaction, for each password check
+    private static final List<Boolean> CHECKED_IN_TRANSACTION = new CopyOnWriteArrayList<>();
+
+    // When set, each password check counts down the first latch and waits for the second
+    private static volatile CountDownLatch[] holdPasswordCheck;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private User user;
+
+    @BeforeEach
+    void createUser() {
+        user = TestData.user();
+        user.setPassword(passwordEncoder.encode("correct horse"));
+        user = userRepository.save(user);
+        CHECKED_IN_TRANSACTION.clear();
+    }
+
+    @AfterEach
+    void releasePasswordCheck() {
+        CountDownLatch[] hold = holdPasswordCheck;
+        holdPasswordCheck = null;
+        if (hold != null) {
+            hold[1].countDown();
+        }
+    }
+
+    @Test
+    void passwordIsCheckedWithoutATransaction() {
+        AuthResponse response = authService.login(login("correct horse"));
+
+        assertThat(response.getAccessToken()).isNotBlank();
+        assertThat(CHECKED_IN_TRANSACTION).containsOnly(false).isNotEmpty();
+    }
+
+    @Test
+    void failedLoginIsCheckedWithoutATransaction() {
+        assertThatThrownBy(() -> authService.login(login("wrong")))
+                .isInstanceOf(UnauthorizedException.class);
+
+        assertThat(CHECKED_IN_TRANSACTION).containsOnly(false).isNotEmpty();
+    }
+
+    @Test
+    void loginRequestHoldsNoConnectionWhileThePasswordIsChecked() throws Exception {
+        HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+        CountDownLatch checking = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        holdPasswordCheck = new CountDownLatch[]{checking, release};
+
+        CompletableFuture<Integer> status = CompletableFuture.supplyAsync(() -> {
+            try {
+                return mockMvc.perform(post("/auth/login")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"usernameOrEmail\":\"" + user.getUsername() + "\",\"password\":\"correct horse\"}"))
+                        .andReturn().getResponse().getStatus();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(checking.await(30, TimeUnit.SECONDS)).isTrue();
+
+        // Scheduled jobs borrow connections now and then; a connection held by the login would show in every sample
+        int fewestActive = Integer.MAX_VALUE;
+        for (int sample = 0; sample < 50; sample++) {
+            fewestActive = Math.min(fewestActive, pool.getActiveConnections());
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        assertThat(status.get(30, TimeUnit.SECONDS)).isEqualTo(200);
+        assertThat(fewestActive).isZero();
+    }
+
+    private AuthLoginRequest login(String password) {
+        AuthLoginRequest request = new AuthLoginRequest();
+        request.setUsernameOrEmail(user.getUsername());
+        request.setPassword(password);
+        return request;
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        static BeanPostProcessor recordingPasswordEncoder() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof PasswordEncoder encoder ? new RecordingPasswordEncoder(encoder) : bean;
+                }
+            };
+        }
+    }
+
+    private record RecordingPasswordEncoder(PasswordEncoder delegate) implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return delegate.encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            CHECKED_IN_TRANSACTION.add(TransactionSynchronizationManager.isActualTransactionActive());
+            CountDownLatch[] hold = holdPasswordCheck;
+            if (hold != null) {
+                hold[0].countDown();
+                try {
+                    hold[1].await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return delegate.matches(rawPassword, encodedPassword);
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            return delegate.upgradeEncoding(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.dto.CartDto;
+import com.ecommerce.backend.dto.CartItemDto;
+import com.ecommerce.backend.entity.Cart;
+import com.ecommerce.backend.entity.CartItem;
+import com.ecommerce.backend.entity.Product;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.repository.UserRepository;
+import com.ecommerce.backend.support.PostgresIntegrationTest;
+import com.ecommerce.backend.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Heap allocated and time taken per GET /cart read of a 12-line cart, against a real database: the
+ * scalar projection the endpoint now uses, against loading the cart entity and walking its lazy
+ * items and products as it did before. Allocation is what the calling thread allocated, as
+ * reported by the JVM, so it includes the JDBC driver and Hibernate.
+ */
+class CartViewAllocationTest extends PostgresIntegrationTest {
+
+    private static final int LINES = 12;
+    private static final int WARMUP = 500;
+    private static final int CALLS = 2_000;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void projectionAllocatesLessThanTheEntityGraph() {
+        Long userId = userRepository.save(TestData.user()).getId();
+        for (int i = 0; i < LINES; i++) {
+            Product product = TestData.product(100);
+            // Loaded with the entity, never needed by the view
+            product.setDescription("A product description of some length. ".repeat(50));
+            cartService.addItemToCart(userId, productRepository.save(product).getId(), 1 + i % 3);
+        }
+        // The session stays open while the controller converts, as with open-in-view
+        TransactionTemplate request = new TransactionTemplate(transactionManager);
+        Supplier<CartDto> entityGraph = () -> request.execute(status -> toCartDto(cartService.getOrCreateCart(userId)));
+        Supplier<CartDto> projection = () -> cartService.getCartView(userId);
+
+        assertThat(projection.get()).isEqualTo(entityGraph.get());
+
+        Measurement entity = measure(entityGraph);
+        Measurement view = measure(projection);
+        System.out.printf("GET /cart, %d lines: entity graph %,d bytes %,d us per call, projection %,d bytes %,d us per call%n",
+                LINES, entity.bytesPerCall(), entity.microsPerCall(), view.bytesPerCall(), view.microsPerCall());
+
+        assertThat(view.bytesPerCall()).isLessThan(entity.bytesPerCall());
+    }
+
+    private static Measurement measure(Supplier<CartDto> read) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP; i++) {
+            read.get();
+        }
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long started = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            read.get();
+        }
+        long elapsed = System.nanoTime() - started;
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+        return new Measurement(bytes / CALLS, elapsed / 1_000 / CALLS);
+    }
+
+    // What CartController did with the entity before the projection
+    private static CartDto toCartDto(Cart cart) {
+        List<CartItemDto> items = cart.getCartItems().stream()
+                .map(CartViewAllocationTest::toCartItemDto)
+                .toList();
+        return CartDto.builder()
+                .id(cart.getId())
+                .items(items)
+                .totalItems(cart.getTotalItems())
+                .totalAmount(cart.getTotalAmount())
+                .build();
+    }
+
+    private static CartItemDto toCartItemDto(CartItem item) {
+        return CartItemDto.builder()
+                .id(item.getId())
+                .productId(item.getProduct().getId())
+                .productName(item.getProduct().getName())
+                .productSku(item.getProduct().getSku())
+                .unitPrice(item.getUnitPrice())
+                .quantity(item.getQuantity())
+                .subTotal(item.getSubTotal())
+                .build();
+    }
+
+    private record Measurement(long bytesPerCall, long microsPerCall) {
+    }
+}
@@ -0,0 +1,86 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.dto.CheckoutRequest;
+import com.ecommerce.backend.dto.OrderDto;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.repository.UserRepository;
+import com.ecommerce.backend.support.PostgresIntegrationTest;
+import com.ecommerce.backend.support.StatementCounter;
+import com.ecommerce.backend.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Import;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(StatementCounter.Config.class)
+class OrderServiceCheckoutTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+    private int batchSize;
+
+    @Test
+    void statementCountDoesNotGrowWithCartSize() {
+        int small = checkoutStatements(2);
+        int large = checkoutStatements(40);
+
+        System.out.printf("Checkout statements: %d for 2 lines, %d for 40 lines%n", small, large);
+        // Only the order item inserts are split, into batches of hibernate.jdbc.batch_size
+        int extraItemBatches = (40 + batchSize - 1) / batchSize - 1;
+        assertThat(large).isEqualTo(small + extraItemBatches);
+    }
+
+    @Test
+    void checkoutTakesStockAndBumpsTheVersion() {
+        Long productId = productRepository.save(TestData.product(10)).getId();
+        long versionBefore = productRepository.findById(productId).orElseThrow().getVersion();
+        Long userId = userRepository.save(TestData.user()).getId();
+        cartService.addItemToCart(userId, productId, 3);
+
+        OrderDto order = orderService.checkout(userId, request());
+
+        assertThat(order.getTotalItems()).isEqualTo(3);
+        assertThat(productRepository.findById(productId).orElseThrow())
+                .satisfies(product -> {
+                    assertThat(product.getStockQuantity()).isEqualTo(7);
+                    assertThat(product.getVersion()).isGreaterThan(versionBefore);
+                });
+    }
+
+    private int checkoutStatements(int lines) {
+        Long userId = userRepository.save(TestData.user()).getId();
+        for (int i = 0; i < lines; i++) {
+            Long productId = productRepository.save(TestData.product(10)).getId();
+            cartService.addItemToCart(userId, productId, 1 + i % 3);
+        }
+        cartService.prepareForCheckout(userId);
+
+        AtomicReference<OrderDto> order = new AtomicReference<>();
+        int statements = StatementCounter.count(() -> order.set(orderService.checkout(userId, request())));
+        assertThat(order.get().getItems()).hasSize(lines);
+        return statements;
+    }
+
+    private static CheckoutRequest request() {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setShippingAddress(new CheckoutRequest.ShippingAddress(
+                "1 Test Street", null, "Springfield", "IL", "62701", "US"));
+        request.setPaymentMethod("CARD");
+        return request;
+    }
+}
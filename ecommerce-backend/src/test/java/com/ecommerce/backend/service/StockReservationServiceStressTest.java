@@ -0,0 +1,130 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.exception.CustomExceptions.InsufficientStockException;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.service.StockReservationService.Reservation;
+import com.ecommerce.backend.support.PostgresIntegrationTest;
+import com.ecommerce.backend.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Many threads reserving one hot product until it sells out, against a real database.
+ */
+class StockReservationServiceStressTest extends PostgresIntegrationTest {
+
+    private static final int INITIAL_STOCK = 2_000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Long productId;
+
+    @BeforeEach
+    void createProduct() {
+        productId = productRepository.save(TestData.product(INITIAL_STOCK)).getId();
+    }
+
+    @AfterEach
+    void deleteProduct() {
+        stockReservationService.returnAllAllotments();
+        productRepository.deleteById(productId);
+    }
+
+    @Test
+    void hotProductIsNeverOversold() throws Exception {
+        AtomicInteger confirmed = new AtomicInteger();
+        AtomicInteger released = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            long userId = i;
+            workers.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                // Keep going until sold out: a refusal within the backoff can still be followed by stock released by others
+                while (confirmed.get() < INITIAL_STOCK && refused.get() < THREADS * 50) {
+                    int quantity = 1 + random.nextInt(3);
+                    try {
+                        Reservation reservation = stockReservationService.reserve(userId, Map.of(productId, quantity));
+                        if (random.nextInt(4) == 0) {
+                            stockReservationService.release(reservation.getId());
+                            released.addAndGet(quantity);
+                        } else {
+                            stockReservationService.confirm(reservation.getId());
+                            confirmed.addAndGet(quantity);
+                        }
+                    } catch (InsufficientStockException e) {
+                        refused.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(2, TimeUnit.MINUTES);
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        executor.shutdown();
+
+        stockReservationService.returnAllAllotments();
+        int remaining = productRepository.findById(productId).orElseThrow().getStockQuantity();
+        int reservations = confirmed.get() + released.get();
+        System.out.printf("%d threads: %d units confirmed, %d released, %d refusals in %d ms (%.0f reservations/s)%n",
+                THREADS, confirmed.get(), released.get(), refused.get(), elapsedMs, reservations * 1000.0 / elapsedMs);
+
+        assertThat(confirmed.get()).isLessThanOrEqualTo(INITIAL_STOCK);
+        assertThat(remaining + confirmed.get()).isEqualTo(INITIAL_STOCK);
+    }
+
+    @Test
+    void allottedStockIsDroppedWhenStockIsSetOutright() {
+        Reservation held = stockReservationService.reserve(1L, Map.of(productId, 1));
+        int inDatabase = productRepository.findById(productId).orElseThrow().getStockQuantity();
+        assertThat(inDatabase).isLessThan(INITIAL_STOCK - 1);
+
+        productService.updateProduct(productId, TestData.product(100));
+        stockReservationService.returnAllAllotments();
+        stockReservationService.release(held.getId());
+        stockReservationService.returnAllAllotments();
+
+        assertThat(productRepository.findById(productId).orElseThrow().getStockQuantity()).isEqualTo(100);
+    }
+
+    @Test
+    void requestLargerThanWhatIsLeftIsRefused() {
+        productService.updateProduct(productId, TestData.product(5));
+
+        assertThatThrownBy(() -> stockReservationService.reserve(1L, Map.of(productId, 6)))
+                .isInstanceOf(InsufficientStockException.class);
+        assertThat(productRepository.findById(productId).orElseThrow().getStockQuantity()).isEqualTo(5);
+    }
+}
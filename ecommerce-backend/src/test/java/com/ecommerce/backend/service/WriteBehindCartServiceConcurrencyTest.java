@@ -0,0 +1,220 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.dto.CartDto;
+import com.ecommerce.backend.dto.CartItemDto;
+import com.ecommerce.backend.dto.CheckoutRequest;
+import com.ecommerce.backend.dto.OrderDto;
+import com.ecommerce.backend.dto.OrderItemDto;
+import com.ecommerce.backend.entity.Cart;
+import com.ecommerce.backend.entity.CartItem;
+import com.ecommerce.backend.exception.CustomExceptions.CartItemNotFoundException;
+import com.ecommerce.backend.repository.CartItemRepository;
+import com.ecommerce.backend.repository.CartRepository;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.repository.UserRepository;
+import com.ecommerce.backend.support.PostgresIntegrationTest;
+import com.ecommerce.backend.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cart edits racing flushes and checkouts of the same cart, against a real database. However the
+ * writes interleave, once everything has been flushed the database holds exactly the cart in
+ * memory, and every unit added is either in an order or still in the cart.
+ */
+@TestPropertySource(properties = "cart.engine=write-behind")
+class WriteBehindCartServiceConcurrencyTest extends PostgresIntegrationTest {
+
+    private static final int PRODUCTS = 4;
+    private static final int EDITORS = 8;
+    private static final int FLUSHERS = 3;
+
+    @Autowired
+    private WriteBehindCartService cartService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long userId;
+    private List<Long> productIds;
+
+    @BeforeEach
+    void createUserAndProducts() {
+        userId = userRepository.save(TestData.user()).getId();
+        productIds = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            productIds.add(productRepository.save(TestData.product(1_000_000)).getId());
+        }
+    }
+
+    @Test
+    void overlappingFlushesLeaveTheDatabaseMatchingTheCart() throws Exception {
+        AtomicBoolean editing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(EDITORS + FLUSHERS);
+        List<Future<?>> editors = new ArrayList<>();
+        for (int i = 0; i < EDITORS; i++) {
+            editors.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int op = 0; op < 400; op++) {
+                    Long productId = productIds.get(random.nextInt(PRODUCTS));
+                    if (random.nextInt(3) == 0) {
+                        remove(productId);
+                    } else {
+                        cartService.addItemToCart(userId, productId, 1 + random.nextInt(3));
+                    }
+                }
+                return null;
+            }));
+        }
+        List<Future<?>> flushers = startFlushers(executor, start, editing);
+
+        start.countDown();
+        for (Future<?> editor : editors) {
+            editor.get(2, TimeUnit.MINUTES);
+        }
+        editing.set(false);
+        for (Future<?> flusher : flushers) {
+            flusher.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        cartService.flushDirtyCarts();
+        assertDatabaseMatchesCart();
+    }
+
+    @Test
+    void checkoutRacingEditsOrdersEachUnitOnce() throws Exception {
+        Map<Long, Integer> added = new ConcurrentHashMap<>();
+        for (Long productId : productIds) {
+            cartService.addItemToCart(userId, productId, 1);
+            added.merge(productId, 1, Integer::sum);
+        }
+
+        AtomicBoolean editing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(EDITORS + FLUSHERS);
+        List<Future<?>> editors = new ArrayList<>();
+        for (int i = 0; i < EDITORS; i++) {
+            editors.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (editing.get()) {
+                    Long productId = productIds.get(random.nextInt(PRODUCTS));
+                    cartService.addItemToCart(userId, productId, 1);
+                    added.merge(productId, 1, Integer::sum);
+                }
+                return null;
+            }));
+        }
+        List<Future<?>> flushers = startFlushers(executor, start, editing);
+
+        start.countDown();
+        Map<Long, Integer> ordered = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            OrderDto order = orderService.checkout(userId, request());
+            for (OrderItemDto item : order.getItems()) {
+                ordered.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            }
+        }
+        editing.set(false);
+        for (Future<?> worker : editors) {
+            worker.get(1, TimeUnit.MINUTES);
+        }
+        for (Future<?> flusher : flushers) {
+            flusher.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        cartService.flushDirtyCarts();
+        assertDatabaseMatchesCart();
+        Map<Long, Integer> inCart = cartQuantities();
+        for (Long productId : productIds) {
+            assertThat(ordered.getOrDefault(productId, 0) + inCart.getOrDefault(productId, 0))
+                    .as("units of product %d ordered or left in the cart", productId)
+                    .isEqualTo(added.get(productId));
+        }
+    }
+
+    private List<Future<?>> startFlushers(ExecutorService executor, CountDownLatch start, AtomicBoolean editing) {
+        List<Future<?>> flushers = new ArrayList<>();
+        for (int i = 0; i < FLUSHERS; i++) {
+            flushers.add(executor.submit(() -> {
+                start.await();
+                while (editing.get()) {
+                    cartService.flushDirtyCarts();
+                }
+                return null;
+            }));
+        }
+        return flushers;
+    }
+
+    private void remove(Long productId) {
+        for (CartItemDto item : cartService.getCartView(userId).getItems()) {
+            if (item.getProductId().equals(productId)) {
+                try {
+                    cartService.removeItemFromCart(userId, item.getId());
+                } catch (CartItemNotFoundException e) {
+                    // Another editor removed it first
+                }
+                return;
+            }
+        }
+    }
+
+    private void assertDatabaseMatchesCart() {
+        Map<Long, Integer> inDatabase = cartItemRepository.findByUserId(userId).stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), CartItem::getQuantity));
+        assertThat(inDatabase).isEqualTo(cartQuantities());
+
+        CartDto view = cartService.getCartView(userId);
+        Cart cart = cartRepository.findByUserId(userId).orElseThrow();
+        assertThat(cart.getTotalItems()).isEqualTo(view.getTotalItems());
+        assertThat(cart.getTotalAmount()).isEqualByComparingTo(view.getTotalAmount());
+    }
+
+    private Map<Long, Integer> cartQuantities() {
+        return cartService.getCartView(userId).getItems().stream()
+                .collect(Collectors.toMap(CartItemDto::getProductId, CartItemDto::getQuantity));
+    }
+
+    private static CheckoutRequest request() {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setShippingAddress(new CheckoutRequest.ShippingAddress(
+                "1 Test Street", null, "Springfield", "IL", "62701", "US"));
+        request.setPaymentMethod("CARD");
+        return request;
+    }
+}
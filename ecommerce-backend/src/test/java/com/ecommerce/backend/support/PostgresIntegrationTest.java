@@ -0,0 +1,30 @@
+package com.ecommerce.backend.support;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Base for tests that need the full application against PostgreSQL, the database it runs on; see
+ * {@link TestDatabase} for which one.
+ * <p>
+ * The schema is created by Hibernate, as in production. The database is shared by every test in
+ * the run, so tests create the rows they need rather than relying on what is there.
+ */
+@SpringBootTest(properties = {
+        // Statement logging would drown out what the tests report
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+        "order.number.node-id=0"
+})
+@ExtendWith(TestDatabase.StopAfterContexts.class)
+public abstract class PostgresIntegrationTest {
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", TestDatabase::url);
+        registry.add("spring.datasource.username", TestDatabase::username);
+        registry.add("spring.datasource.password", TestDatabase::password);
+    }
+}
@@ -0,0 +1,70 @@
+package com.ecommerce.backend.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PostgreSQL plans for the SQL Hibernate generates, to check that a query reaches its index the
+ * way it is meant to.
+ * <p>
+ * Tests that use it run with {@link #STATEMENT_INSPECTOR}, which lets {@link #sqlOf} record the
+ * statements the current thread prepares.
+ */
+public final class QueryPlans {
+
+    public static final String STATEMENT_INSPECTOR =
+            "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + "com.ecommerce.backend.support.QueryPlans$Recorder";
+
+    private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+    private QueryPlans() {
+    }
+
+    /**
+     * The last statement the action prepared.
+     */
+    public static String sqlOf(Runnable action) {
+        List<String> recorded = new ArrayList<>();
+        RECORDED.set(recorded);
+        try {
+            action.run();
+        } finally {
+            RECORDED.remove();
+        }
+        if (recorded.isEmpty()) {
+            throw new IllegalStateException("No statement was prepared");
+        }
+        return recorded.get(recorded.size() - 1);
+    }
+
+    /**
+     * The plan of a statement, with its parameters replaced in order by the given SQL literals.
+     */
+    public static String explain(JdbcTemplate jdbc, String sql, String... literals) {
+        if (sql.chars().filter(c -> c == '?').count() != literals.length) {
+            throw new IllegalArgumentException("Expected " + literals.length + " parameters in " + sql);
+        }
+        StringBuilder bound = new StringBuilder();
+        int literal = 0;
+        for (char c : sql.toCharArray()) {
+            bound.append(c == '?' ? literals[literal++] : String.valueOf(c));
+        }
+        return String.join("\n", jdbc.queryForList("EXPLAIN " + bound, String.class));
+    }
+
+    public static class Recorder implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            List<String> recorded = RECORDED.get();
+            if (recorded != null) {
+                recorded.add(sql);
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.ecommerce.backend.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Counts the statements the current thread sends to the database, to check that the round trips
+ * of an operation do not grow with its input. A JDBC batch counts once.
+ * <p>
+ * Tests that use it import {@link Config}, which wraps the application's data source.
+ */
+public final class StatementCounter {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    private StatementCounter() {
+    }
+
+    public static int count(Runnable action) {
+        int[] count = new int[1];
+        COUNT.set(count);
+        try {
+            action.run();
+            return count[0];
+        } finally {
+            COUNT.remove();
+        }
+    }
+
+    @TestConfiguration
+    public static class Config {
+
+        @Bean
+        static BeanPostProcessor statementCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? new CountingDataSource(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    private static final class CountingDataSource extends DelegatingDataSource {
+
+        private CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return wrap(Connection.class, super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return wrap(Connection.class, super.getConnection(username, password));
+        }
+    }
+
+    private static <T> T wrap(Class<T> type, T target) {
+        Object proxy = Proxy.newProxyInstance(StatementCounter.class.getClassLoader(), new Class<?>[]{type},
+                (self, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (target instanceof Statement && method.getName().startsWith("execute")) {
+                        int[] count = COUNT.get();
+                        if (count != null) {
+                            count[0]++;
+                        }
+                    }
+                    if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                        return wrapStatement(method.getReturnType(), result);
+                    }
+                    return result;
+                });
+        return type.cast(proxy);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T wrapStatement(Class<?> type, Object statement) {
+        return wrap((Class<T>) type, (T) statement);
+    }
+}
@@ -0,0 +1,38 @@
+package com.ecommerce.backend.support;
+
+import com.ecommerce.backend.entity.Product;
+import com.ecommerce.backend.entity.User;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Unsaved entities with unique keys, for tests that share a database.
+ */
+public final class TestData {
+
+    private TestData() {
+    }
+
+    public static Product product(int stock) {
+        Product product = new Product();
+        product.setName("Test product");
+        product.setPrice(new BigDecimal("9.99"));
+        product.setCategory("Test");
+        product.setSku("TEST-" + UUID.randomUUID());
+        product.setStockQuantity(stock);
+        return product;
+    }
+
+    public static User user() {
+        String key = UUID.randomUUID().toString().substring(0, 18);
+        User user = new User();
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setUsername("test-" + key);
+        user.setEmail("test-" + key + "@example.com");
+        // Not a valid hash: tests that log in set their own password
+        user.setPassword("{noop}unused");
+        return user;
+    }
+}
@@ -0,0 +1,99 @@
+package com.ecommerce.backend.support;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The PostgreSQL database tests and benchmarks run against: the one at {@code TEST_DATABASE_URL}
+ * (with {@code TEST_DATABASE_USERNAME} and {@code TEST_DATABASE_PASSWORD}) when set, otherwise an
+ * embedded one started once per JVM.
+ */
+public final class TestDatabase {
+
+    private static EmbeddedPostgres embedded;
+
+    private TestDatabase() {
+    }
+
+    public static String url() {
+        String url = System.getenv("TEST_DATABASE_URL");
+        return url != null ? url : embeddedPostgres().getJdbcUrl("postgres", "postgres");
+    }
+
+    public static String username() {
+        return System.getenv("TEST_DATABASE_URL") != null
+                ? System.getenv().getOrDefault("TEST_DATABASE_USERNAME", "postgres")
+                : "postgres";
+    }
+
+    public static String password() {
+        return System.getenv("TEST_DATABASE_URL") != null
+                ? System.getenv().getOrDefault("TEST_DATABASE_PASSWORD", "")
+                : "";
+    }
+
+    public static Connection connect() throws SQLException {
+        return DriverManager.getConnection(url(), username(), password());
+    }
+
+    // Also stopped by a JVM shutdown hook of its own, which would race with the application
+    // contexts' hook; tests stop it through StopAfterContexts before the JVM exits
+    private static synchronized EmbeddedPostgres embeddedPostgres() {
+        if (embedded == null) {
+            try {
+                embedded = EmbeddedPostgres.builder().start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not start embedded PostgreSQL", e);
+            }
+        }
+        return embedded;
+    }
+
+    private static synchronized void stopEmbedded() throws IOException {
+        if (embedded != null) {
+            embedded.close();
+        }
+    }
+
+    /**
+     * Closes the application contexts of the test classes it extends once every test has run, and
+     * then the embedded database, so beans that write on shutdown still reach it.
+     */
+    public static final class StopAfterContexts implements BeforeAllCallback {
+
+        @Override
+        public void beforeAll(ExtensionContext context) {
+            ApplicationContext applicationContext = SpringExtension.getApplicationContext(context);
+            context.getRoot().getStore(ExtensionContext.Namespace.create(StopAfterContexts.class))
+                    .getOrComputeIfAbsent(Contexts.class, key -> new Contexts(), Contexts.class)
+                    .add((ConfigurableApplicationContext) applicationContext);
+        }
+    }
+
+    private static final class Contexts implements ExtensionContext.Store.CloseableResource {
+
+        private final Set<ConfigurableApplicationContext> open = new LinkedHashSet<>();
+
+        synchronized void add(ConfigurableApplicationContext context) {
+            open.add(context);
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            open.forEach(ConfigurableApplicationContext::close);
+            stopEmbedded();
+        }
+    }
+}
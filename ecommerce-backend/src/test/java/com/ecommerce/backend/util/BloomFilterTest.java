@@ -0,0 +1,48 @@
+package com.ecommerce.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A filter filled to the size it was created for.
+ */
+class BloomFilterTest {
+
+    private static final int INSERTIONS = 100_000;
+    private static final int PROBES = 200_000;
+
+    @Test
+    void everyValuePutIsFound() {
+        BloomFilter filter = filled(0.001);
+
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertThat(filter.mightContain("token-" + i)).as("token-%d", i).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateIsCloseToTheConfiguredOne() {
+        for (double configured : new double[]{0.01, 0.001}) {
+            BloomFilter filter = filled(configured);
+
+            int falsePositives = 0;
+            for (int i = 0; i < PROBES; i++) {
+                if (filter.mightContain("absent-" + i)) {
+                    falsePositives++;
+                }
+            }
+
+            assertThat((double) falsePositives / PROBES).as("rate configured at %s", configured)
+                    .isBetween(configured / 2, configured * 1.5);
+        }
+    }
+
+    private static BloomFilter filled(double falsePositiveRate) {
+        BloomFilter filter = BloomFilter.create(INSERTIONS, falsePositiveRate);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put("token-" + i);
+        }
+        return filter;
+    }
+}
@@ -0,0 +1,103 @@
+package com.ecommerce.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.data.Offset.offset;
+
+/**
+ * Estimates against exact counts, and the fold, merge and serialized forms the distinct-count
+ * rollups rely on.
+ */
+class HyperLogLogTest {
+
+    @Test
+    void estimateIsWithinThreeStandardErrors() {
+        for (int precision : new int[]{10, 12, 14}) {
+            double standardError = 1.04 / Math.sqrt(1 << precision);
+            for (int distinct : new int[]{100, 1_000, 10_000, 100_000, 1_000_000}) {
+                HyperLogLog sketch = new HyperLogLog(precision);
+                // Sequential ids, as user and product ids are, each added twice
+                long first = distinct * 7L;
+                for (long id = first; id < first + distinct; id++) {
+                    sketch.add(id);
+                    sketch.add(id);
+                }
+
+                assertThat((double) sketch.estimate())
+                        .as("%d distinct at precision %d", distinct, precision)
+                        .isCloseTo(distinct, offset(3 * standardError * distinct));
+            }
+        }
+    }
+
+    @Test
+    void foldingThenMergingEqualsBuildingAtTheLowerPrecision() {
+        Random random = new Random(7);
+        HyperLogLog fine = new HyperLogLog(14);
+        HyperLogLog coarse = new HyperLogLog(10);
+        for (int i = 0; i < 50_000; i++) {
+            long value = random.nextLong();
+            fine.add(value);
+            coarse.add(value);
+        }
+
+        HyperLogLog merged = new HyperLogLog(10);
+        merged.merge(fine);
+
+        assertThat(fine.fold(10).toBytes()).isEqualTo(coarse.toBytes());
+        assertThat(merged.toBytes()).isEqualTo(coarse.toBytes());
+        assertThatThrownBy(() -> fine.merge(coarse)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void mergeCountsTheUnionOnce() {
+        HyperLogLog monday = new HyperLogLog(12);
+        HyperLogLog tuesday = new HyperLogLog(12);
+        HyperLogLog both = new HyperLogLog(12);
+        for (long id = 0; id < 30_000; id++) {
+            monday.add(id);
+            both.add(id);
+        }
+        for (long id = 20_000; id < 50_000; id++) {
+            tuesday.add(id);
+            both.add(id);
+        }
+
+        monday.merge(tuesday);
+        monday.merge(tuesday);
+
+        assertThat(monday.toBytes()).isEqualTo(both.toBytes());
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        for (long id = 0; id < 10_000; id++) {
+            sketch.add(id);
+        }
+
+        byte[] bytes = sketch.toBytes();
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+
+        assertThat(bytes).hasSize(2 + 4096);
+        assertThat(restored.precision()).isEqualTo(12);
+        assertThat(restored.toBytes()).isEqualTo(bytes);
+        assertThat(restored.estimate()).isEqualTo(sketch.estimate());
+        assertThat(restored.add(3)).isFalse();
+    }
+
+    @Test
+    void malformedBytesAreRejected() {
+        byte[] bytes = new HyperLogLog(10).toBytes();
+
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[]{2, 10}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(Arrays.copyOf(bytes, bytes.length - 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,70 @@
+package com.ecommerce.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The error bounds of the summary, checked against exact weights of a skewed stream with far more
+ * keys than counters.
+ */
+class SpaceSavingTest {
+
+    private static final int CAPACITY = 50;
+
+    @Test
+    void countsOverestimateByAtMostTheirBoundedError() {
+        Random random = new Random(42);
+        SpaceSaving summary = new SpaceSaving(CAPACITY);
+        Map<Long, Long> weights = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            // Key k turns up with probability about proportional to 1 / k
+            long key = (long) Math.exp(random.nextDouble() * Math.log(5_000));
+            long weight = 1 + random.nextInt(3);
+            summary.add(key, weight);
+            weights.merge(key, weight, Long::sum);
+        }
+        long total = weights.values().stream().mapToLong(Long::longValue).sum();
+        Set<Long> tracked = new HashSet<>();
+
+        summary.forEach((key, count, error) -> {
+            long weight = weights.getOrDefault(key, 0L);
+            assertThat(count).as("count of %d", key).isGreaterThanOrEqualTo(weight);
+            assertThat(count - error).as("count less error of %d", key).isLessThanOrEqualTo(weight);
+            assertThat(error).as("error of %d", key).isLessThanOrEqualTo(total / CAPACITY);
+            tracked.add(key);
+        });
+
+        assertThat(summary.total()).isEqualTo(total);
+        assertThat(summary.isFull()).isTrue();
+        weights.forEach((key, weight) -> {
+            if (weight > total / CAPACITY) {
+                assertThat(tracked).as("heavy key %d", key).contains(key);
+            }
+            if (!tracked.contains(key)) {
+                assertThat(weight).as("untracked key %d", key).isLessThanOrEqualTo(summary.minCount());
+            }
+        });
+    }
+
+    @Test
+    void countsAreExactUntilTheSummaryIsFull() {
+        SpaceSaving summary = new SpaceSaving(CAPACITY);
+        for (long key = 0; key < CAPACITY; key++) {
+            summary.add(key, key + 1);
+        }
+        summary.add(7, 0);
+
+        summary.forEach((key, count, error) -> {
+            assertThat(count).isEqualTo(key + 1);
+            assertThat(error).isZero();
+        });
+        assertThat(summary.minCount()).isEqualTo(1);
+    }
+}